@@ -0,0 +1,50 @@
+package com.example.chainreaction;
+
+/**
+ * Shared time source for board animations. Each drawn frame calls {@link #tick(long)},
+ * which advances by the time since the previous frame, taken from the vsync timestamp
+ * when one is available. The step is capped so that a stall or dropped frames resume
+ * smoothly instead of jumping.
+ */
+public class AnimationClock {
+    /** Largest step taken by a frame that was expected one refresh interval after the last. */
+    public static final long MAX_CATCH_UP_NANOS = 50_000_000L;
+
+    private long pendingVsyncNanos;
+    private long lastFrameNanos;
+    private long deltaNanos;
+    private long timeNanos;
+
+    /** Records the vsync time of the frame about to be drawn, e.g. from Choreographer. */
+    public void onVsync(long frameTimeNanos) {
+        pendingVsyncNanos = frameTimeNanos;
+    }
+
+    /**
+     * Advances the clock to the current frame, stepping at most {@code maxDeltaNanos}.
+     * Frames drawn on demand, without a vsync timestamp, use System.nanoTime().
+     */
+    public void tick(long maxDeltaNanos) {
+        long now = pendingVsyncNanos != 0 ? pendingVsyncNanos : System.nanoTime();
+        pendingVsyncNanos = 0;
+        deltaNanos = lastFrameNanos == 0 ? 0 : Math.max(0, Math.min(now - lastFrameNanos, maxDeltaNanos));
+        lastFrameNanos = now;
+        timeNanos += deltaNanos;
+    }
+
+    /** Time advanced by the last tick, in seconds. */
+    public float getDeltaSeconds() {
+        return deltaNanos / 1e9f;
+    }
+
+    /** Total animation time in seconds; only advances while frames are drawn. */
+    public double getTimeSeconds() {
+        return timeNanos / 1e9;
+    }
+
+    /** Forgets the last frame time so the next tick starts from zero, e.g. after going idle. */
+    public void pause() {
+        lastFrameNanos = 0;
+        pendingVsyncNanos = 0;
+    }
+}
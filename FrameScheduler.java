@@ -0,0 +1,152 @@
+package com.example.chainreaction;
+
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * Decides when the board view needs its next frame. The view reports its animation
+ * sources at the end of every frame: cells that shake, orbs in flight, and whether any
+ * orbs are on the board to rotate. Shaking or flying orbs keep the view at the display
+ * refresh rate; rotation alone only needs a low-rate tick; with nothing to animate no
+ * frame is requested until something invalidates the view.
+ *
+ * <p>Frames are requested through Choreographer so the shared {@link AnimationClock}
+ * advances by vsync time rather than by frame count.
+ */
+public class FrameScheduler implements Choreographer.FrameCallback {
+    public static final int MODE_IDLE = 0;
+    public static final int MODE_AMBIENT = 1;
+    public static final int MODE_ACTIVE = 2;
+
+    private static final long AMBIENT_FRAME_INTERVAL_MS = 96;
+
+    /** Receives timing for every drawn frame. */
+    public interface FrameStatsListener {
+        void onFrame(int mode, long drawNanos, long intervalNanos);
+    }
+
+    private final View view;
+    private final Choreographer choreographer;
+    private final AnimationClock clock = new AnimationClock();
+    private FrameStatsListener statsListener;
+    private boolean frameRequested;
+
+    private int mode = MODE_IDLE;
+    private long frameStartNanos;
+    private long lastFrameStartNanos;
+    private long lastDrawNanos;
+    private long lastIntervalNanos;
+    private long maxDrawNanos;
+    private long totalDrawNanos;
+    private long frameCount;
+
+    /** Must be created on the UI thread. */
+    public FrameScheduler(View view) {
+        this.view = view;
+        this.choreographer = Choreographer.getInstance();
+    }
+
+    public void setFrameStatsListener(FrameStatsListener listener) {
+        this.statsListener = listener;
+    }
+
+    public AnimationClock getClock() {
+        return clock;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameRequested = false;
+        clock.onVsync(frameTimeNanos);
+        view.invalidate();
+    }
+
+    /** Call at the start of onDraw; advances the animation clock to this frame. */
+    public void beginFrame() {
+        frameStartNanos = System.nanoTime();
+        lastIntervalNanos = lastFrameStartNanos == 0 ? 0 : frameStartNanos - lastFrameStartNanos;
+        lastFrameStartNanos = frameStartNanos;
+        // An ambient tick is expected to cover its whole interval; anything else is capped
+        long maxDelta = AnimationClock.MAX_CATCH_UP_NANOS;
+        if (mode == MODE_AMBIENT) {
+            maxDelta += AMBIENT_FRAME_INTERVAL_MS * 1_000_000L;
+        }
+        clock.tick(maxDelta);
+    }
+
+    /**
+     * Call at the end of onDraw with the animation sources seen in that frame. Requests the
+     * next frame according to the resulting mode and publishes the frame timing.
+     */
+    public void endFrame(int shakingCells, int flyingOrbs, boolean hasOrbs) {
+        if (shakingCells > 0 || flyingOrbs > 0) {
+            mode = MODE_ACTIVE;
+        } else if (hasOrbs) {
+            mode = MODE_AMBIENT;
+        } else {
+            mode = MODE_IDLE;
+        }
+
+        if (frameRequested) {
+            choreographer.removeFrameCallback(this);
+            frameRequested = false;
+        }
+        if (mode == MODE_ACTIVE) {
+            choreographer.postFrameCallback(this);
+            frameRequested = true;
+        } else if (mode == MODE_AMBIENT) {
+            choreographer.postFrameCallbackDelayed(this, AMBIENT_FRAME_INTERVAL_MS);
+            frameRequested = true;
+        } else {
+            clock.pause();
+            lastFrameStartNanos = 0;
+        }
+
+        lastDrawNanos = System.nanoTime() - frameStartNanos;
+        totalDrawNanos += lastDrawNanos;
+        maxDrawNanos = Math.max(maxDrawNanos, lastDrawNanos);
+        frameCount++;
+        if (statsListener != null) {
+            statsListener.onFrame(mode, lastDrawNanos, lastIntervalNanos);
+        }
+    }
+
+    /** Stops any pending frame request, e.g. when the view is detached. */
+    public void cancel() {
+        choreographer.removeFrameCallback(this);
+        frameRequested = false;
+        mode = MODE_IDLE;
+        clock.pause();
+        lastFrameStartNanos = 0;
+    }
+
+    public int getMode() {
+        return mode;
+    }
+
+    public long getLastDrawNanos() {
+        return lastDrawNanos;
+    }
+
+    public long getLastIntervalNanos() {
+        return lastIntervalNanos;
+    }
+
+    public long getMaxDrawNanos() {
+        return maxDrawNanos;
+    }
+
+    public long getAverageDrawNanos() {
+        return frameCount == 0 ? 0 : totalDrawNanos / frameCount;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public void resetStats() {
+        maxDrawNanos = 0;
+        totalDrawNanos = 0;
+        frameCount = 0;
+    }
+}
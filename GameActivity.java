@@ -2,6 +2,8 @@ package com.example.chainreaction;
 
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
 import android.os.Bundle;
 import android.view.View;
 import android.view.animation.OvershootInterpolator;
@@ -9,8 +11,16 @@ import android.widget.Button;
 import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 
 public class GameActivity extends AppCompatActivity {
+    // Intent extra: player number (1-3) the computer plays; absent or 0 for humans only
+    public static final String EXTRA_AI_PLAYER = "com.example.chainreaction.AI_PLAYER";
+    // Built by the tools module's openingBook task; stored uncompressed so it can be mapped
+    private static final String OPENING_BOOK_ASSET = "opening_book.bin";
+
     private GameBoardView gameBoardView;
     private TextView playerTurnText;
     private TextView playerScoreText;
@@ -66,9 +76,28 @@ public class GameActivity extends AppCompatActivity {
             }
         });
 
+        gameBoardView.setReplayDirectory(new File(getFilesDir(), "replays"));
+
+        int aiPlayer = getIntent().getIntExtra(EXTRA_AI_PLAYER, 0);
+        if (aiPlayer != 0) {
+            AlphaBetaPlayer computer = new AlphaBetaPlayer();
+            computer.setOpeningBook(loadOpeningBook(this));
+            gameBoardView.setAiOpponent(aiPlayer, computer);
+        }
+
         updateGameStatus();
     }
 
+    // Mapped straight from the APK: nothing is read until the computer looks a position up
+    static OpeningBook loadOpeningBook(Context context) {
+        try (AssetFileDescriptor asset = context.getAssets().openFd(OPENING_BOOK_ASSET);
+             FileInputStream in = asset.createInputStream()) {
+            return OpeningBook.map(in.getChannel(), asset.getStartOffset(), asset.getLength());
+        } catch (IOException e) {
+            return null; // this build has no book
+        }
+    }
+
     private void restartGame() {
         // Hide overlays with animation
         blurOverlay.animate()
@@ -89,8 +118,7 @@ public class GameActivity extends AppCompatActivity {
 
         // Reset game state
         isGameOver = false;
-        gameBoardView.getGameBoard().reset();
-        updateGameStatus();
+        gameBoardView.resetGame(); // the status updates once the engine has reset
     }
 
     private void showGameOver(int winner) {
@@ -139,7 +167,7 @@ public class GameActivity extends AppCompatActivity {
     }
 
     private void updateGameStatus() {
-        GameBoard gameBoard = gameBoardView.getGameBoard();
+        BoardSnapshot gameBoard = gameBoardView.getSnapshot();
         int currentPlayer = gameBoard.getCurrentPlayer();
         
         // Update current player text
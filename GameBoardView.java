@@ -6,17 +6,17 @@ import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
-import android.graphics.Rect;
 import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.MotionEvent;
 import android.view.View;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import androidx.core.content.ContextCompat;
 
 public class GameBoardView extends View {
@@ -31,30 +31,77 @@ public class GameBoardView extends View {
     private float cellHeight;
     private OnGameStateChangeListener listener;
 
-    // Bitmaps for different orb states
-    private Bitmap orbRed1;
-    private Bitmap orbRed2;
-    private Bitmap orbRed3;
-    private Bitmap orbGreen1;
-    private Bitmap orbGreen2;
-    private Bitmap orbGreen3;
-    private Bitmap orbYellow1;
-    private Bitmap orbYellow2;
-    private Bitmap orbYellow3;
+    // Grid lines are drawn once into this layer and only redrawn when the size or colour changes
+    private Bitmap gridLayer;
+    private int gridLayerColor;
+    private final RectF gridCellRect = new RectF();
+
+    // Orb sprites for each player and orb count, pre-scaled and pre-rotated to the cell size
+    private OrbSpriteCache orbSprites;
 
     private List<OrbAnimation> orbAnimations = new ArrayList<>();
-    private Random shakeRandom = new Random();
+    private final List<OrbAnimation> animationPool = new ArrayList<>();
     private static final float SHAKE_INTENSITY = 8f; // pixels
-    private static final long ANIMATION_FRAME_DELAY = 16; // ms, ~60fps
+    private static final double SHAKE_FREQUENCY_X = 2 * Math.PI * 13; // radians per second
+    private static final double SHAKE_FREQUENCY_Y = 2 * Math.PI * 17;
+    private static final float ORB_FLIGHT_SECONDS = 0.2f;
+    private FrameScheduler frameScheduler;
 
+    // Moves are resolved on the engine thread; touches that arrive meanwhile wait here
     private final List<PendingMove> pendingMoves = new ArrayList<>();
-    private boolean animating = false;
+    private static final int MAX_PENDING_MOVES = 4;
+    private static final int OP_RESET = -1;       // PendingMove.row for a reset
+    private static final int OP_SET_PLAYERS = -2; // PendingMove.row for setNumPlayers, count in col
+    private static final int OP_UPDATE_AI = -3;   // PendingMove.row to re-check whose turn it is
+    private static final int OP_UNDO = -4;
+    private static final int OP_REDO = -5;
+    private static final int OP_AI_NO_MOVE = -6;  // PendingMove.row when the computer found no move
+    private ExecutorService engineExecutor;
+    private boolean moveInFlight;
+
+    // Every game is recorded on the engine thread and saved here when it ends, if set
+    private ReplayWriter replay;
+    private volatile File replayDirectory;
+
+    // Optional computer opponent; it thinks on its own thread and its moves join the queue
+    private static final long AI_TIME_BUDGET_MS = 800;
+    private volatile int aiPlayerId;
+    private volatile AiThinker aiThinker;
+    private int aiRequest; // engine thread only; moves from older requests are dropped
+
+    // The UI reads the front snapshot while the engine fills the back one
+    private BoardSnapshot frontSnapshot;
+    private BoardSnapshot backSnapshot;
+    private boolean backReady;
+    private boolean gameOverShown;
+
+    // Board as currently shown; lags behind the front snapshot while a cascade is played back
+    private byte[] displayOwners;
+    private byte[] displayOrbs;
+    private long[] displayCritical; // cells that shake, as a bitset like GameBoard's
+    private CascadeEvents playback; // waves of the move being played back, or null
+    private int playbackWave;
+    private static final int MAX_FLIGHTS_PER_WAVE = 256; // further flights land without animating
+    private static final int MAX_ANIMATED_WAVES = 40; // longer cascades jump to the end state
+
+    // Touch-down shows where the move would spread before touch-up plays it
+    private MovePreview movePreview;
+    private int previewCell = -1;
+    private int previewGeneration;
+    private boolean previewShown;
+    private byte[] previewOwners;
+    private byte[] previewOrbs;
+    private Paint previewPaint;
+    private final RectF previewRect = new RectF();
+    private static final int PREVIEW_ALPHA = 80;
+    private final Runnable previewReady = this::onPreviewReady;
 
     private float globalOrbRotation = 0f;
-    private static final float ORB_ROTATION_SPEED = 0.5f; // degrees per frame, adjust for speed
+    private static final float ORB_ROTATION_SPEED = 30f; // degrees per second, adjust for speed
 
     private static class PendingMove {
-        int row, col, playerId;
+        int row, col, playerId; // playerId 0: whoever's turn it is when the move is resolved
+        int aiRequest; // non-zero for computer moves
         PendingMove(int row, int col, int playerId) {
             this.row = row; this.col = col; this.playerId = playerId;
         }
@@ -82,6 +129,19 @@ public class GameBoardView extends View {
 
     private void init() {
         gameBoard = new GameBoard(DEFAULT_BOARD_WIDTH, DEFAULT_BOARD_HEIGHT);
+        gameBoard.setCascadeEventsEnabled(true);
+        gameBoard.setJournalingEnabled(true);
+        replay = new ReplayWriter(gameBoard.getTopology(), gameBoard.getNumPlayers());
+        frontSnapshot = new BoardSnapshot(gameBoard.getWidth(), gameBoard.getHeight());
+        backSnapshot = new BoardSnapshot(gameBoard.getWidth(), gameBoard.getHeight());
+        frontSnapshot.copyFrom(gameBoard, false);
+        displayOwners = new byte[gameBoard.getWidth() * gameBoard.getHeight()];
+        displayOrbs = new byte[gameBoard.getWidth() * gameBoard.getHeight()];
+        displayCritical = new long[gameBoard.getBitWords()];
+        previewOwners = new byte[gameBoard.getWidth() * gameBoard.getHeight()];
+        previewOrbs = new byte[gameBoard.getWidth() * gameBoard.getHeight()];
+        movePreview = new MovePreview(gameBoard.getTopology(), generation -> post(previewReady));
+        frameScheduler = new FrameScheduler(this);
 
         cellPaint = new Paint();
         cellPaint.setStyle(Paint.Style.STROKE);
@@ -94,69 +154,334 @@ public class GameBoardView extends View {
         textPaint.setTextAlign(Paint.Align.CENTER);
         textPaint.setAntiAlias(true);
 
+        previewPaint = new Paint();
+        previewPaint.setStyle(Paint.Style.FILL);
+        previewPaint.setAntiAlias(true);
+
         setBackgroundColor(Color.WHITE);
 
-        // Load orb bitmaps with better quality
-        orbRed1 = BitmapFactory.decodeResource(getResources(), R.drawable.orb_red_1);
-        orbRed2 = BitmapFactory.decodeResource(getResources(), R.drawable.orb_red_2);
-        orbRed3 = BitmapFactory.decodeResource(getResources(), R.drawable.orb_red_3);
-        orbGreen1 = BitmapFactory.decodeResource(getResources(), R.drawable.orb_green_1);
-        orbGreen2 = BitmapFactory.decodeResource(getResources(), R.drawable.orb_green_2);
-        orbGreen3 = BitmapFactory.decodeResource(getResources(), R.drawable.orb_green_3);
-        orbYellow1 = BitmapFactory.decodeResource(getResources(), R.drawable.orb_yellow_1);
-        orbYellow2 = BitmapFactory.decodeResource(getResources(), R.drawable.orb_yellow_2);
-        orbYellow3 = BitmapFactory.decodeResource(getResources(), R.drawable.orb_yellow_3);
-
-        gameBoard.setOnGameStateChangeListener(new GameBoard.OnGameStateChangeListener() {
-            @Override
-            public void onGameStateChanged() {
-                Log.d(TAG, "Game state changed, invalidating view");
-                invalidate();
-                if (listener != null) {
-                    listener.onGameStateChanged();
-                }
-            }
+        // Load orb bitmaps with better quality, ordered as in getOrbSprite
+        int[] orbDrawables = {
+            R.drawable.orb_red_1, R.drawable.orb_red_2, R.drawable.orb_red_3,
+            R.drawable.orb_green_1, R.drawable.orb_green_2, R.drawable.orb_green_3,
+            R.drawable.orb_yellow_1, R.drawable.orb_yellow_2, R.drawable.orb_yellow_3
+        };
+        Bitmap[] orbBitmaps = new Bitmap[orbDrawables.length];
+        for (int i = 0; i < orbDrawables.length; i++) {
+            orbBitmaps[i] = BitmapFactory.decodeResource(getResources(), orbDrawables[i]);
+        }
+        orbSprites = new OrbSpriteCache(orbBitmaps, OrbSpriteCache.DEFAULT_ROTATION_FRAMES);
+    }
+
+    public void setOnGameStateChangeListener(OnGameStateChangeListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the engine board. It belongs to the engine thread once moves have been made;
+     * UI code should read {@link #getSnapshot()} instead.
+     */
+    public GameBoard getGameBoard() {
+        return gameBoard;
+    }
+
+    /** Latest board state published to the UI thread. */
+    public BoardSnapshot getSnapshot() {
+        return frontSnapshot;
+    }
+
+    /** Starts a new game once any move being resolved has finished. */
+    public void resetGame() {
+        pendingMoves.clear();
+        pendingMoves.add(new PendingMove(OP_RESET, 0, 0));
+        if (playback != null) {
+            finishPlayback();
+        } else {
+            pump();
+        }
+    }
 
-            @Override
-            public void onGameOver(int winner) {
-                Log.d(TAG, "Game over, winner: " + winner);
-                if (listener != null) {
-                    listener.onGameOver(winner);
+    public void setNumPlayers(int numPlayers) {
+        pendingMoves.add(new PendingMove(OP_SET_PLAYERS, numPlayers, 0));
+        pump();
+    }
+
+    /**
+     * Takes back the last move, or against the computer, everything back to the human's
+     * last turn. The board jumps to the earlier state without animating.
+     */
+    public void undoMove() {
+        pendingMoves.add(new PendingMove(OP_UNDO, 0, 0));
+        if (playback != null) {
+            finishPlayback();
+        } else {
+            pump();
+        }
+    }
+
+    /** Plays again the moves taken back by the last {@link #undoMove()}. */
+    public void redoMove() {
+        pendingMoves.add(new PendingMove(OP_REDO, 0, 0));
+        if (playback != null) {
+            finishPlayback();
+        } else {
+            pump();
+        }
+    }
+
+    /**
+     * Saves every finished game as a replay file in the given directory, or stops saving
+     * when it is null. See {@link ReplayReader} for reading them back.
+     */
+    public void setReplayDirectory(File directory) {
+        replayDirectory = directory;
+    }
+
+    /**
+     * Lets a computer player take the given player's turns, or turns the computer
+     * opponent off when player is null. Touches are ignored while it is the computer's turn.
+     */
+    public void setAiOpponent(int playerId, AiPlayer player) {
+        if (aiThinker != null) {
+            aiThinker.shutdown();
+        }
+        aiThinker = player != null ? new AiThinker(player) : null;
+        aiPlayerId = player != null ? playerId : 0;
+        pendingMoves.add(new PendingMove(OP_UPDATE_AI, 0, 0));
+        pump();
+    }
+
+    /**
+     * Moves the pipeline forward on the UI thread: shows a resolved move once the previous
+     * cascade has finished playing, then hands the next queued move to the engine as soon
+     * as the back snapshot is free again.
+     */
+    private void pump() {
+        if (playback == null && backReady) {
+            presentBack();
+        }
+        if (!moveInFlight && !backReady && !pendingMoves.isEmpty()) {
+            dispatch(pendingMoves.remove(0));
+        }
+    }
+
+    private void dispatch(PendingMove move) {
+        if (engineExecutor == null) {
+            engineExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ChainReactionEngine");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        moveInFlight = true;
+        BoardSnapshot target = backSnapshot;
+        engineExecutor.execute(() -> {
+            boolean changed;
+            if (move.row == OP_RESET) {
+                gameBoard.reset();
+                replay.reset(gameBoard.getNumPlayers());
+                changed = true;
+            } else if (move.row == OP_SET_PLAYERS) {
+                gameBoard.setNumPlayers(move.col);
+                replay.reset(move.col);
+                changed = true;
+            } else if (move.row == OP_UPDATE_AI) {
+                changed = false;
+            } else if (move.row == OP_UNDO) {
+                changed = gameBoard.undoMove();
+                while (changed && gameBoard.getCurrentPlayer() == aiPlayerId && gameBoard.undoMove()) {
+                    // keep going back to a human turn
+                }
+            } else if (move.row == OP_REDO) {
+                changed = gameBoard.redoMove();
+                while (changed && gameBoard.getCurrentPlayer() == aiPlayerId && gameBoard.redoMove()) {
+                    // the computer's replies come back too
                 }
+            } else if (move.aiRequest != 0 ? move.aiRequest != aiRequest
+                    : gameBoard.getCurrentPlayer() == aiPlayerId) {
+                changed = false; // stale computer move, or a touch during the computer's turn
+            } else {
+                if (move.row == OP_AI_NO_MOVE) {
+                    // Don't leave the game waiting on the computer: play its first legal move
+                    int fallback = gameBoard.nextLegalMove(gameBoard.getCurrentPlayer(), 0);
+                    Log.w(TAG, "Computer player " + move.playerId + " found no move, playing cell " + fallback);
+                    move.row = fallback >= 0 ? fallback / gameBoard.getWidth() : -1;
+                    move.col = fallback >= 0 ? fallback % gameBoard.getWidth() : -1;
+                }
+                changed = move.row >= 0 && gameBoard.makeMove(move.row, move.col);
+                if (changed) {
+                    replay.recordMove(gameBoard.getMoveCount() - 1, move.row, move.col);
+                    if (gameBoard.isGameOver()) {
+                        saveReplay();
+                    }
+                }
+            }
+            if (changed) {
+                target.copyFrom(gameBoard, move.row >= 0);
+            }
+            if (changed || move.row == OP_UPDATE_AI) {
+                updateAi();
             }
+            post(() -> onEngineResult(changed));
         });
+    }
 
-        gameBoard.setGameBoardView(this);
+    // Runs on the engine thread once a game has ended
+    private void saveReplay() {
+        File directory = replayDirectory;
+        if (directory == null) {
+            return;
+        }
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("cannot create " + directory);
+            }
+            replay.writeTo(new File(directory, "game-" + System.currentTimeMillis() + ".crr"));
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save replay", e);
+        }
     }
 
-    public void setOnGameStateChangeListener(OnGameStateChangeListener listener) {
-        this.listener = listener;
-        gameBoard.setOnGameStateChangeListener(new GameBoard.OnGameStateChangeListener() {
-            @Override
-            public void onGameStateChanged() {
-                post(() -> {
-                    invalidate();
-                    if (listener != null) {
-                        listener.onGameStateChanged();
-                    }
-                });
+    /**
+     * Runs on the engine thread after the board changes: starts the computer thinking on
+     * its turn, or pondering on the human's turn.
+     */
+    private void updateAi() {
+        aiRequest++;
+        AiThinker thinker = aiThinker;
+        if (thinker == null) {
+            return;
+        }
+        if (gameBoard.isGameOver()) {
+            thinker.cancel();
+        } else if (gameBoard.getCurrentPlayer() == aiPlayerId) {
+            int request = aiRequest;
+            int playerId = aiPlayerId;
+            int width = gameBoard.getWidth();
+            thinker.think(gameBoard, AI_TIME_BUDGET_MS, move -> post(() -> {
+                PendingMove aiMove = move >= 0 ? new PendingMove(move / width, move % width, playerId)
+                        : new PendingMove(OP_AI_NO_MOVE, 0, playerId);
+                aiMove.aiRequest = request;
+                pendingMoves.add(aiMove);
+                pump();
+            }));
+        } else {
+            thinker.ponder(gameBoard);
+        }
+    }
+
+    private void onEngineResult(boolean changed) {
+        moveInFlight = false;
+        backReady |= changed;
+        pump();
+    }
+
+    private void presentBack() {
+        BoardSnapshot swap = frontSnapshot;
+        frontSnapshot = backSnapshot;
+        backSnapshot = swap;
+        backReady = false;
+        Log.d(TAG, "Game state changed, invalidating view");
+        refreshPreview();
+        startPlayback();
+        invalidate();
+        if (listener != null) {
+            listener.onGameStateChanged();
+        }
+    }
+
+    /**
+     * Starts showing the cascade of the move just made, one explosion wave per animation
+     * step, from the display state the board had before the move.
+     */
+    private void startPlayback() {
+        CascadeEvents events = frontSnapshot.getEvents();
+        if (events.getWaveCount() == 0) {
+            finishPlayback();
+            return;
+        }
+        int move = events.getMove();
+        displayOwners[move] = (byte) events.getPlayer();
+        displayOrbs[move]++;
+        updateDisplayCritical(move);
+        playback = events;
+        playbackWave = 0;
+        launchWave();
+    }
+
+    private void launchWave() {
+        int width = gameBoard.getWidth();
+        int start = playback.getWaveStart(playbackWave);
+        int end = playback.getWaveEnd(playbackWave);
+        for (int flight = start; flight < end; flight++) {
+            int from = playback.getFrom(flight);
+            if (--displayOrbs[from] <= 0) {
+                displayOrbs[from] = 0;
+                displayOwners[from] = 0;
             }
+            updateDisplayCritical(from);
+            if (flight - start < MAX_FLIGHTS_PER_WAVE) {
+                int to = playback.getTo(flight);
+                OrbAnimation anim = animationPool.isEmpty()
+                        ? new OrbAnimation(0, 0, 0, 0, 0, 0)
+                        : animationPool.remove(animationPool.size() - 1);
+                anim.set(from / width, from % width, to / width, to % width, playback.getPlayer(flight), 1);
+                orbAnimations.add(anim);
+            }
+        }
+    }
 
-            @Override
-            public void onGameOver(int winner) {
-                post(() -> {
-                    invalidate();
-                    if (listener != null) {
-                        Log.d("GameBoardView", "Game Over triggered for winner: " + winner);
-                        listener.onGameOver(winner);
-                    }
-                });
+    private void landWave() {
+        int start = playback.getWaveStart(playbackWave);
+        int end = playback.getWaveEnd(playbackWave);
+        for (int flight = start; flight < end; flight++) {
+            int to = playback.getTo(flight);
+            displayOwners[to] = (byte) playback.getPlayer(flight);
+            displayOrbs[to]++;
+            updateDisplayCritical(to);
+        }
+        playbackWave++;
+        if (playbackWave < playback.getWaveCount() && playbackWave < MAX_ANIMATED_WAVES) {
+            launchWave();
+        } else {
+            finishPlayback();
+        }
+    }
+
+    // Playback changes the displayed cells one orb at a time; the engine's bits only match at the end
+    private void updateDisplayCritical(int index) {
+        int width = gameBoard.getWidth();
+        long bit = 1L << index;
+        if (displayOwners[index] != 0
+                && displayOrbs[index] == gameBoard.getThreshold(index / width, index % width) - 1) {
+            displayCritical[index >>> 6] |= bit;
+        } else {
+            displayCritical[index >>> 6] &= ~bit;
+        }
+    }
+
+    /** Ends playback on the front snapshot's state, reports game over, and moves on. */
+    private void finishPlayback() {
+        cancelPlayback();
+        frontSnapshot.copyState(displayOwners, displayOrbs);
+        frontSnapshot.copyCriticalBits(displayCritical);
+        if (!frontSnapshot.isGameOver()) {
+            gameOverShown = false;
+        } else if (!gameOverShown) {
+            gameOverShown = true;
+            Log.d(TAG, "Game over, winner: " + frontSnapshot.getWinner());
+            if (listener != null) {
+                listener.onGameOver(frontSnapshot.getWinner());
             }
-        });
+        }
+        pump();
     }
 
-    public GameBoard getGameBoard() {
-        return gameBoard;
+    private void cancelPlayback() {
+        playback = null;
+        for (int i = orbAnimations.size() - 1; i >= 0; i--) {
+            animationPool.add(orbAnimations.remove(i));
+        }
     }
 
     @Override
@@ -167,108 +492,105 @@ public class GameBoardView extends View {
         cellHeight = h / (float) gameBoard.getHeight();
         setPadding(0, 0, 0, 0); // Remove any padding
         textPaint.setTextSize(cellHeight * 0.4f);
+        releaseGridLayer();
+        orbSprites.setSpriteSize((int) (Math.min(cellWidth, cellHeight) * 0.7f));
         Log.d(TAG, "View size changed: " + w + "x" + h + ", cell size: " + cellWidth + "x" + cellHeight);
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        boolean hasAnimating = false;
+        frameScheduler.beginFrame();
+        AnimationClock clock = frameScheduler.getClock();
+        float dt = clock.getDeltaSeconds();
+        double time = clock.getTimeSeconds();
+        int shakingCells = 0;
+        boolean hasOrbs = false;
         
         // Update global rotation
-        globalOrbRotation += ORB_ROTATION_SPEED;
-        if (globalOrbRotation >= 360f) globalOrbRotation -= 360f;
+        globalOrbRotation = (globalOrbRotation + ORB_ROTATION_SPEED * dt) % 360f;
         
-        // Draw cells with improved appearance
+        if (ensureGridLayer()) {
+            canvas.drawBitmap(gridLayer, 0, 0, null);
+        }
+        if (previewShown && playback == null) {
+            drawPreview(canvas);
+        }
+
+        // Draw cell contents on top of the cached grid
         for (int row = 0; row < gameBoard.getHeight(); row++) {
             for (int col = 0; col < gameBoard.getWidth(); col++) {
-                float left = col * cellWidth;
-                float top = row * cellHeight;
-                float right = left + cellWidth;
-                float bottom = top + cellHeight;
-                
-                // Draw cell border with rounded corners
-                Path path = new Path();
-                float radius = Math.min(cellWidth, cellHeight) * 0.1f;
-                path.addRoundRect(new RectF(left, top, right, bottom), radius, radius, Path.Direction.CW);
-                canvas.drawPath(path, cellPaint);
-                
-                // Draw cell content
-                GameCell cell = gameBoard.getCell(row, col);
-                if (cell.getPlayerId() != 0) {
-                    Bitmap orbBitmap = getOrbBitmap(cell.getPlayerId(), cell.getOrbs());
-                    if (orbBitmap != null) {
-                        float shakeX = 0, shakeY = 0;
-                        if (cell.getOrbs() == cell.getThreshold() - 1) {
-                            shakeX = (shakeRandom.nextFloat() - 0.5f) * SHAKE_INTENSITY;
-                            shakeY = (shakeRandom.nextFloat() - 0.5f) * SHAKE_INTENSITY;
-                            hasAnimating = true;
-                        }
-                        
-                        float scale = Math.min(cellWidth, cellHeight) * 0.7f / Math.max(orbBitmap.getWidth(), orbBitmap.getHeight());
-                        float scaledWidth = orbBitmap.getWidth() * scale;
-                        float scaledHeight = orbBitmap.getHeight() * scale;
-                        float centerX = left + cellWidth / 2 + shakeX;
-                        float centerY = top + cellHeight / 2 + shakeY;
-                        
-                        canvas.save();
-                        canvas.rotate(globalOrbRotation, centerX, centerY);
-                        Rect destRect = new Rect(
-                            (int) (centerX - scaledWidth / 2),
-                            (int) (centerY - scaledHeight / 2),
-                            (int) (centerX + scaledWidth / 2),
-                            (int) (centerY + scaledHeight / 2)
-                        );
-                        canvas.drawBitmap(orbBitmap, null, destRect, null);
-                        canvas.restore();
+                int index = row * gameBoard.getWidth() + col;
+                int playerId = displayOwners[index];
+                if (playerId == 0) {
+                    continue;
+                }
+                hasOrbs = true;
+                int orbs = displayOrbs[index];
+                int sprite = getOrbSprite(playerId, orbs);
+                if (sprite >= 0) {
+                    float shakeX = 0, shakeY = 0;
+                    if ((displayCritical[index >>> 6] & (1L << index)) != 0) {
+                        // Shake follows the clock, with a per-cell phase so cells don't move in step
+                        shakeX = (float) Math.sin(time * SHAKE_FREQUENCY_X + index) * SHAKE_INTENSITY / 2;
+                        shakeY = (float) Math.sin(time * SHAKE_FREQUENCY_Y + index * 1.7) * SHAKE_INTENSITY / 2;
+                        shakingCells++;
                     }
+                    float centerX = col * cellWidth + cellWidth / 2 + shakeX;
+                    float centerY = row * cellHeight + cellHeight / 2 + shakeY;
+                    drawOrb(canvas, sprite, centerX, centerY);
                 }
             }
         }
         
-        // Draw animating orbs
-        Iterator<OrbAnimation> it = orbAnimations.iterator();
-        while (it.hasNext()) {
-            OrbAnimation anim = it.next();
+        // Draw animating orbs, dropping the finished ones
+        for (int i = orbAnimations.size() - 1; i >= 0; i--) {
+            OrbAnimation anim = orbAnimations.get(i);
             if (anim.finished) {
-                it.remove();
+                animationPool.add(orbAnimations.remove(i));
                 continue;
             }
-            hasAnimating = true;
             drawAnimatedOrb(canvas, anim);
+            anim.update(dt / ORB_FLIGHT_SECONDS);
+        }
+        if (playback != null && orbAnimations.isEmpty()) {
+            landWave();
         }
         
-        postInvalidateOnAnimation();
-        if (!hasAnimating && animationEndListener != null) {
+        // Only ask for another frame while something is moving
+        frameScheduler.endFrame(shakingCells, orbAnimations.size() + (playback != null ? 1 : 0), hasOrbs);
+        if (shakingCells == 0 && orbAnimations.isEmpty() && animationEndListener != null) {
             animationEndListener.onAnimationEnd();
         }
     }
 
-    private Bitmap getOrbBitmap(int playerId, int orbCount) {
-        switch (playerId) {
-            case 1:
-                switch (orbCount) {
-                    case 1: return orbRed1;
-                    case 2: return orbRed2;
-                    case 3: return orbRed3;
-                }
-                break;
-            case 2:
-                switch (orbCount) {
-                    case 1: return orbGreen1;
-                    case 2: return orbGreen2;
-                    case 3: return orbGreen3;
-                }
-                break;
-            case 3:
-                switch (orbCount) {
-                    case 1: return orbYellow1;
-                    case 2: return orbYellow2;
-                    case 3: return orbYellow3;
-                }
-                break;
+    // Tints every cell whose owner the previewed move would change, in its new owner's colour
+    private void drawPreview(Canvas canvas) {
+        float radius = Math.min(cellWidth, cellHeight) * 0.1f;
+        for (int index = 0; index < previewOwners.length; index++) {
+            int owner = previewOwners[index];
+            if (owner == displayOwners[index]) {
+                continue;
+            }
+            previewPaint.setColor(owner != 0 ? getPlayerColor(owner) : Color.GRAY);
+            previewPaint.setAlpha(PREVIEW_ALPHA);
+            int row = index / gameBoard.getWidth();
+            int col = index % gameBoard.getWidth();
+            previewRect.set(col * cellWidth, row * cellHeight, (col + 1) * cellWidth, (row + 1) * cellHeight);
+            canvas.drawRoundRect(previewRect, radius, radius, previewPaint);
         }
-        return null;
+    }
+
+    /**
+     * Returns the sprite index for the given player and orb count, or -1 for an empty cell.
+     * Counts above 3 (a cell left over its threshold when a cascade stops early, or on
+     * boards with more neighbours) use the 3-orb sprite.
+     */
+    private int getOrbSprite(int playerId, int orbCount) {
+        if (playerId < 1 || playerId > 3 || orbCount < 1) {
+            return -1;
+        }
+        return (playerId - 1) * 3 + (Math.min(orbCount, 3) - 1);
     }
 
     private void drawAnimatedOrb(Canvas canvas, OrbAnimation anim) {
@@ -279,28 +601,95 @@ public class GameBoardView extends View {
         float x = fromX + (toX - fromX) * anim.progress;
         float y = fromY + (toY - fromY) * anim.progress;
         
-        Bitmap orbBitmap = getOrbBitmap(anim.playerId, 1);
-        if (orbBitmap != null) {
-            float scale = Math.min(cellWidth, cellHeight) * 0.7f / Math.max(orbBitmap.getWidth(), orbBitmap.getHeight());
-            float scaledWidth = orbBitmap.getWidth() * scale;
-            float scaledHeight = orbBitmap.getHeight() * scale;
-            
-            canvas.save();
-            canvas.rotate(globalOrbRotation, x, y);
-            Rect destRect = new Rect(
-                (int) (x - scaledWidth / 2),
-                (int) (y - scaledHeight / 2),
-                (int) (x + scaledWidth / 2),
-                (int) (y + scaledHeight / 2)
-            );
-            canvas.drawBitmap(orbBitmap, null, destRect, null);
-            canvas.restore();
+        int sprite = getOrbSprite(anim.playerId, 1);
+        if (sprite >= 0) {
+            drawOrb(canvas, sprite, x, y);
+        }
+    }
+
+    private void drawOrb(Canvas canvas, int sprite, float centerX, float centerY) {
+        Bitmap frame = orbSprites.getFrame(sprite, globalOrbRotation);
+        if (frame != null) {
+            float half = orbSprites.getFrameSize() / 2f;
+            canvas.drawBitmap(frame, centerX - half, centerY - half, null);
+        }
+    }
+
+    /**
+     * Makes sure the cached grid layer matches the current view size and grid colour,
+     * redrawing it if needed. Returns false if there is nothing to draw yet.
+     */
+    private boolean ensureGridLayer() {
+        int w = getWidth();
+        int h = getHeight();
+        if (w <= 0 || h <= 0) {
+            return false;
+        }
+        if (gridLayer != null && gridLayer.getWidth() == w && gridLayer.getHeight() == h
+                && gridLayerColor == cellPaint.getColor()) {
+            return true;
+        }
+        if (gridLayer == null || gridLayer.getWidth() != w || gridLayer.getHeight() != h) {
+            releaseGridLayer();
+            gridLayer = Bitmap.createBitmap(w, h, Bitmap.Config.ARGB_8888);
+        } else {
+            gridLayer.eraseColor(Color.TRANSPARENT);
+        }
+        gridLayerColor = cellPaint.getColor();
+
+        // Draw cell borders with rounded corners
+        Canvas gridCanvas = new Canvas(gridLayer);
+        float radius = Math.min(cellWidth, cellHeight) * 0.1f;
+        for (int row = 0; row < gameBoard.getHeight(); row++) {
+            for (int col = 0; col < gameBoard.getWidth(); col++) {
+                float left = col * cellWidth;
+                float top = row * cellHeight;
+                gridCellRect.set(left, top, left + cellWidth, top + cellHeight);
+                gridCanvas.drawRoundRect(gridCellRect, radius, radius, cellPaint);
+            }
+        }
+        return true;
+    }
+
+    private void releaseGridLayer() {
+        if (gridLayer != null) {
+            gridLayer.recycle();
+            gridLayer = null;
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // Detaching cancelled any search; the engine threads restart on demand
+        if (aiThinker != null) {
+            pendingMoves.add(new PendingMove(OP_UPDATE_AI, 0, 0));
+            pump();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (engineExecutor != null) {
+            engineExecutor.shutdown(); // a move already submitted still completes
+            engineExecutor = null;
         }
+        if (aiThinker != null) {
+            aiThinker.shutdown();
+        }
+        movePreview.shutdown();
+        frameScheduler.cancel();
+        releaseGridLayer();
+        orbSprites.evictAll();
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
-        if (event.getAction() != MotionEvent.ACTION_UP || gameBoard.isGameOver()) {
+        int action = event.getActionMasked();
+        if (action == MotionEvent.ACTION_CANCEL || frontSnapshot.isGameOver()
+                || (aiPlayerId != 0 && frontSnapshot.getCurrentPlayer() == aiPlayerId)) {
+            showPreview(-1);
             return true;
         }
 
@@ -310,31 +699,86 @@ public class GameBoardView extends View {
         // Convert touch coordinates to grid position
         int col = (int) (x / cellWidth);
         int row = (int) (y / cellHeight);
+        boolean onBoard = row >= 0 && row < gameBoard.getHeight() && col >= 0 && col < gameBoard.getWidth();
+
+        if (action == MotionEvent.ACTION_DOWN || action == MotionEvent.ACTION_MOVE) {
+            showPreview(onBoard ? row * gameBoard.getWidth() + col : -1);
+            return true;
+        }
+        if (action != MotionEvent.ACTION_UP) {
+            return true;
+        }
+        showPreview(-1);
 
         // Ensure coordinates are within bounds
-        if (row >= 0 && row < gameBoard.getHeight() && col >= 0 && col < gameBoard.getWidth()) {
-            if (gameBoard.makeMove(row, col)) {
-                invalidate();
+        if (onBoard) {
+            if (pendingMoves.size() < MAX_PENDING_MOVES) {
+                pendingMoves.add(new PendingMove(row, col, 0));
+            }
+            if (playback != null) {
+                finishPlayback(); // show the previous cascade's result before moving again
+            } else {
+                pump();
             }
         }
 
         return true;
     }
 
+    /**
+     * Previews the current player's move at the given cell, or hides the preview for -1 or
+     * a cell they can't play. While the finger stays on one cell nothing new is asked for;
+     * the overlay for the previous cell stays up until the new one is ready.
+     */
+    private void showPreview(int cell) {
+        if (cell == previewCell) {
+            return;
+        }
+        previewCell = cell;
+        int owner = cell >= 0 ? frontSnapshot.getOwner(cell / gameBoard.getWidth(), cell % gameBoard.getWidth()) : 0;
+        if (cell < 0 || (owner != 0 && owner != frontSnapshot.getCurrentPlayer())) {
+            movePreview.cancel();
+            if (previewShown) {
+                previewShown = false;
+                invalidate();
+            }
+            return;
+        }
+        previewGeneration = movePreview.request(frontSnapshot, cell);
+    }
+
+    // A new position arrived while the finger is down: preview the same cell on it
+    private void refreshPreview() {
+        int cell = previewCell;
+        previewCell = -1;
+        previewShown = false;
+        if (cell >= 0 && !frontSnapshot.isGameOver()
+                && (aiPlayerId == 0 || frontSnapshot.getCurrentPlayer() != aiPlayerId)) {
+            showPreview(cell);
+        } else {
+            movePreview.cancel();
+        }
+    }
+
+    private void onPreviewReady() {
+        if (previewCell >= 0 && movePreview.copyResult(previewGeneration, previewOwners, previewOrbs)) {
+            previewShown = true;
+            invalidate();
+        }
+    }
+
     // Call this to start an orb movement animation
     public void startOrbAnimation(int fromRow, int fromCol, int toRow, int toCol, int playerId, int orbCount) {
-        orbAnimations.add(new OrbAnimation(fromRow, fromCol, toRow, toCol, playerId, orbCount));
-        animateOrbs();
+        OrbAnimation anim = animationPool.isEmpty()
+                ? new OrbAnimation(fromRow, fromCol, toRow, toCol, playerId, orbCount)
+                : animationPool.remove(animationPool.size() - 1);
+        anim.set(fromRow, fromCol, toRow, toCol, playerId, orbCount);
+        orbAnimations.add(anim);
+        invalidate(); // onDraw advances the animation and keeps frames coming until it finishes
     }
 
-    // Animation loop
-    private void animateOrbs() {
-        for (OrbAnimation anim : orbAnimations) {
-            if (!anim.finished) {
-                anim.update(0.08f); // ~12 frames per second
-            }
-        }
-        invalidate();
+    public FrameScheduler getFrameScheduler() {
+        return frameScheduler;
     }
 
     public void setAnimationEndListener(AnimationEndListener listener) {
@@ -342,23 +786,21 @@ public class GameBoardView extends View {
     }
 
     public void updateGridLineColorForPlayer(int playerId) {
-        int color;
+        cellPaint.setColor(getPlayerColor(playerId));
+        Log.d(TAG, "Grid line color changed for player: " + playerId);
+        invalidate();
+    }
+
+    private static int getPlayerColor(int playerId) {
         switch (playerId) {
             case 1:
-                color = Color.RED;
-                break;
+                return Color.RED;
             case 2:
-                color = Color.GREEN;
-                break;
+                return Color.GREEN;
             case 3:
-                color = Color.YELLOW;
-                break;
+                return Color.YELLOW;
             default:
-                color = Color.BLACK;
-                break;
+                return Color.BLACK;
         }
-        cellPaint.setColor(color);
-        Log.d(TAG, "Grid line color changed for player: " + playerId);
-        invalidate();
     }
 } 
\ No newline at end of file
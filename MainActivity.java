@@ -12,6 +12,7 @@ public class MainActivity extends AppCompatActivity {
     private static final String TAG = "MainActivity";
     private GameBoardView gameBoardView;
     private int selectedPlayers = 0;
+    private boolean vsComputer = false;
     private boolean gameStarted = false;
 
     @Override
@@ -30,8 +31,15 @@ public class MainActivity extends AppCompatActivity {
         setContentView(R.layout.activity_start);
         Button twoPlayerButton = findViewById(R.id.twoPlayerButton);
         Button threePlayerButton = findViewById(R.id.threePlayerButton);
+        Button computerButton = findViewById(R.id.computerButton);
         Button playGameButton = findViewById(R.id.playGameButton);
 
+        computerButton.setAlpha(vsComputer ? 1f : 0.5f);
+        computerButton.setOnClickListener(v -> {
+            vsComputer = !vsComputer;
+            computerButton.setAlpha(vsComputer ? 1f : 0.5f);
+        });
+
         twoPlayerButton.setOnClickListener(v -> {
             selectedPlayers = 2;
             twoPlayerButton.setAlpha(1f);
@@ -54,11 +62,16 @@ public class MainActivity extends AppCompatActivity {
     private void startGame(int numPlayers) {
         setContentView(R.layout.activity_main);
         gameBoardView = findViewById(R.id.gameBoardView);
-        gameBoardView.getGameBoard().setNumPlayers(numPlayers);
+        gameBoardView.setNumPlayers(numPlayers);
+        if (vsComputer) {
+            AlphaBetaPlayer computer = new AlphaBetaPlayer();
+            computer.setOpeningBook(GameActivity.loadOpeningBook(this));
+            gameBoardView.setAiOpponent(numPlayers, computer);
+        }
         gameBoardView.setOnGameStateChangeListener(new GameBoardView.OnGameStateChangeListener() {
             @Override
             public void onGameStateChanged() {
-                int currentPlayer = gameBoardView.getGameBoard().getCurrentPlayer();
+                int currentPlayer = gameBoardView.getSnapshot().getCurrentPlayer();
                 gameBoardView.updateGridLineColorForPlayer(currentPlayer);
             }
             @Override
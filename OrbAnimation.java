@@ -1,12 +1,17 @@
 package com.example.chainreaction;
 
 public class OrbAnimation {
-    public final int fromRow, fromCol, toRow, toCol, playerId;
-    public final int orbCount;
+    public int fromRow, fromCol, toRow, toCol, playerId;
+    public int orbCount;
     public float progress; // 0.0 to 1.0
     public boolean finished;
 
     public OrbAnimation(int fromRow, int fromCol, int toRow, int toCol, int playerId, int orbCount) {
+        set(fromRow, fromCol, toRow, toCol, playerId, orbCount);
+    }
+
+    /** Reinitialises a pooled animation for a new flight. */
+    public void set(int fromRow, int fromCol, int toRow, int toCol, int playerId, int orbCount) {
         this.fromRow = fromRow;
         this.fromCol = fromCol;
         this.toRow = toRow;
@@ -24,4 +29,4 @@ public class OrbAnimation {
             finished = true;
         }
     }
-} 
\ No newline at end of file
+} 
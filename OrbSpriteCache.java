@@ -0,0 +1,104 @@
+package com.example.chainreaction;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+
+/**
+ * Holds the orb sprites resampled to the current cell size, each with a fixed number of
+ * pre-rotated frames. Frames are rendered the first time they are needed and dropped
+ * whenever the sprite size changes, so drawing an orb is a plain bitmap blit.
+ */
+public class OrbSpriteCache {
+    public static final int DEFAULT_ROTATION_FRAMES = 24;
+
+    private final Bitmap[] sources;
+    private final int rotationFrames;
+    private final Bitmap[] scaled;
+    private final Bitmap[][] frames; // [sprite][rotation frame]
+    private final Canvas frameCanvas = new Canvas();
+    private final Matrix frameMatrix = new Matrix();
+    private final Paint framePaint = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.ANTI_ALIAS_FLAG);
+    private int spriteSize;
+    private int frameSize;
+
+    public OrbSpriteCache(Bitmap[] sources, int rotationFrames) {
+        this.sources = sources;
+        this.rotationFrames = rotationFrames;
+        this.scaled = new Bitmap[sources.length];
+        this.frames = new Bitmap[sources.length][rotationFrames];
+    }
+
+    /**
+     * Sets the size, in pixels, of the longest side of a sprite. Cached frames are evicted
+     * if the size changes.
+     */
+    public void setSpriteSize(int size) {
+        if (size == spriteSize) {
+            return;
+        }
+        evictAll();
+        spriteSize = size;
+        // Frames are square and large enough to hold the sprite at any angle
+        frameSize = (int) Math.ceil(size * Math.sqrt(2));
+    }
+
+    /** Side length of every frame bitmap; frames are centred on the orb position. */
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    /** Returns the frame of the given sprite closest to the given rotation, rendering it if needed. */
+    public Bitmap getFrame(int sprite, float rotationDegrees) {
+        if (spriteSize <= 0 || sources[sprite] == null) {
+            return null;
+        }
+        int frame = (int) (rotationDegrees / 360f * rotationFrames + 0.5f) % rotationFrames;
+        if (frame < 0) {
+            frame += rotationFrames;
+        }
+        Bitmap bitmap = frames[sprite][frame];
+        if (bitmap == null) {
+            bitmap = renderFrame(sprite, frame);
+            frames[sprite][frame] = bitmap;
+        }
+        return bitmap;
+    }
+
+    private Bitmap renderFrame(int sprite, int frame) {
+        Bitmap source = scaled[sprite];
+        if (source == null) {
+            // Resample from the full-resolution bitmap once per sprite and size
+            Bitmap original = sources[sprite];
+            float scale = spriteSize / (float) Math.max(original.getWidth(), original.getHeight());
+            source = Bitmap.createScaledBitmap(original,
+                    Math.max(1, Math.round(original.getWidth() * scale)),
+                    Math.max(1, Math.round(original.getHeight() * scale)), true);
+            scaled[sprite] = source;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(frameSize, frameSize, Bitmap.Config.ARGB_8888);
+        frameCanvas.setBitmap(bitmap);
+        frameMatrix.setTranslate((frameSize - source.getWidth()) / 2f, (frameSize - source.getHeight()) / 2f);
+        frameMatrix.postRotate(frame * 360f / rotationFrames, frameSize / 2f, frameSize / 2f);
+        frameCanvas.drawBitmap(source, frameMatrix, framePaint);
+        frameCanvas.setBitmap(null);
+        return bitmap;
+    }
+
+    /** Releases every cached frame and resampled sprite; they are rebuilt on demand. */
+    public void evictAll() {
+        for (int sprite = 0; sprite < frames.length; sprite++) {
+            if (scaled[sprite] != null) {
+                scaled[sprite].recycle();
+                scaled[sprite] = null;
+            }
+            for (int frame = 0; frame < rotationFrames; frame++) {
+                if (frames[sprite][frame] != null) {
+                    frames[sprite][frame].recycle();
+                    frames[sprite][frame] = null;
+                }
+            }
+        }
+    }
+}
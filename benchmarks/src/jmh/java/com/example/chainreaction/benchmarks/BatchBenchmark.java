@@ -0,0 +1,95 @@
+package com.example.chainreaction.benchmarks;
+
+import com.example.chainreaction.BatchEnv;
+import com.example.chainreaction.GameBoard;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One random legal move on each of many boards, played by BatchEnv and, as the baseline,
+ * by a loop over one GameBoard per game. Both pick their moves the same way from the
+ * same fixed seed and restart a board as soon as its game ends, so each invocation is
+ * the same mix of quiet moves and cascades; picking the moves is part of the cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchBenchmark {
+    @Param({"6x12", "16x16"})
+    public String size;
+
+    @Param({"1024"})
+    public int boards;
+
+    private BatchEnv batch;
+    private int[] actions;
+    private long batchRandom;
+    private GameBoard[] games;
+    private long loopRandom;
+
+    @Setup
+    public void setUp() {
+        games = new GameBoard[boards];
+        for (int b = 0; b < boards; b++) {
+            games[b] = BenchmarkBoards.empty(size, 2);
+        }
+        batch = new BatchEnv(boards, games[0].getWidth(), games[0].getHeight(), 2);
+        actions = new int[boards];
+        batchRandom = 0x5DEECE66DL;
+        loopRandom = 0x5DEECE66DL;
+    }
+
+    /** A move on every board of the batch in one step. */
+    @Benchmark
+    public int batchStep() {
+        int width = batch.getWidth();
+        int cellCount = width * batch.getHeight();
+        byte[] owners = batch.getOwners();
+        for (int b = 0; b < boards; b++) {
+            if (batch.isGameOver(b)) {
+                batch.reset(b);
+            }
+            batchRandom = BenchmarkBoards.next(batchRandom);
+            int player = batch.getCurrentPlayer(b);
+            int start = (int) ((batchRandom >>> 33) % cellCount);
+            actions[b] = -1;
+            for (int i = 0; i < cellCount; i++) {
+                int index = start + i < cellCount ? start + i : start + i - cellCount;
+                int owner = owners[batch.cellOffset(b, index / width, index % width)];
+                if (owner == 0 || owner == player) {
+                    actions[b] = index;
+                    break;
+                }
+            }
+        }
+        batch.step(actions);
+        return batch.getLastExplosions(0);
+    }
+
+    /** The same moves one GameBoard at a time: what BatchEnv has to beat. */
+    @Benchmark
+    public int gameBoardLoop() {
+        for (int b = 0; b < boards; b++) {
+            GameBoard game = games[b];
+            if (game.isGameOver()) {
+                game.reset();
+            }
+            loopRandom = BenchmarkBoards.next(loopRandom);
+            BenchmarkBoards.playRandomMove(game, loopRandom);
+        }
+        return games[0].getLastCascadeExplosions();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.chainreaction.benchmarks;
+
+import com.example.chainreaction.GameBoard;
+
+/**
+ * Fixed-seed positions shared by the benchmarks, so every run measures the same work.
+ */
+final class BenchmarkBoards {
+    private BenchmarkBoards() {
+    }
+
+    /** Parses a board size written as "WIDTHxHEIGHT". */
+    static GameBoard empty(String size, int numPlayers) {
+        int split = size.indexOf('x');
+        GameBoard board = new GameBoard(Integer.parseInt(size.substring(0, split)),
+                Integer.parseInt(size.substring(split + 1)));
+        board.setNumPlayers(numPlayers);
+        return board;
+    }
+
+    /**
+     * A board where every cell is one orb short of exploding: player 1 owns the first half
+     * in row-major order and player 2 the second, with player 1 to move. A move by player 1
+     * in the top-left corner then sets off a cascade through the whole board.
+     */
+    static GameBoard saturated(String size) {
+        GameBoard board = empty(size, 2);
+        board.setJournalingEnabled(true);
+        int width = board.getWidth();
+        int low = 0;
+        int high = width * board.getHeight() - 1;
+        while (true) {
+            // Each player tops up cells from its own end of the board, one orb per turn
+            boolean first = board.getCurrentPlayer() == 1;
+            while (low <= high && isFull(board, first ? low : high)) {
+                if (first) {
+                    low++;
+                } else {
+                    high--;
+                }
+            }
+            if (low > high) {
+                break;
+            }
+            int index = first ? low : high;
+            board.makeMove(index / width, index % width);
+        }
+        if (board.getCurrentPlayer() != 1) {
+            board.undoMove(); // hand the turn back to player 1, one orb short
+        }
+        board.setJournalingEnabled(false);
+        return board;
+    }
+
+    private static boolean isFull(GameBoard board, int index) {
+        int row = index / board.getWidth();
+        int col = index % board.getWidth();
+        return board.getOrbs(row, col) == board.getThreshold(row, col) - 1;
+    }
+
+    /**
+     * A mid-to-late game position reached by random play from the given seed, with at
+     * least {@code fill} of the cells owned. Restarts from the next seed if a game ends
+     * first.
+     */
+    static GameBoard randomPosition(String size, int numPlayers, long seed, double fill) {
+        GameBoard board = empty(size, numPlayers);
+        int cellCount = board.getWidth() * board.getHeight();
+        long state = seed;
+        while (true) {
+            int owned = 0;
+            for (int p = 1; p <= numPlayers; p++) {
+                owned += board.getPlayerCellCount(p);
+            }
+            if (owned >= cellCount * fill && !board.isGameOver()) {
+                return board;
+            }
+            if (board.isGameOver()) {
+                board.reset();
+            }
+            state = next(state);
+            playRandomMove(board, state);
+        }
+    }
+
+    /** Plays a random legal move chosen with the given random value. */
+    static void playRandomMove(GameBoard board, long random) {
+        int width = board.getWidth();
+        int cellCount = width * board.getHeight();
+        int player = board.getCurrentPlayer();
+        int start = (int) ((random >>> 33) % cellCount);
+        for (int i = 0; i < cellCount; i++) {
+            int index = start + i < cellCount ? start + i : start + i - cellCount;
+            int owner = board.getOwner(index / width, index % width);
+            if (owner == 0 || owner == player) {
+                board.makeMove(index / width, index % width);
+                return;
+            }
+        }
+    }
+
+    /** Next value of a 64-bit xorshift generator; never returns 0 for a non-zero seed. */
+    static long next(long state) {
+        state ^= state << 13;
+        state ^= state >>> 7;
+        state ^= state << 17;
+        return state;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.chainreaction.benchmarks;
+
+import com.example.chainreaction.GameBoard;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole random games from an empty board, including the per-move score and game-over
+ * checks. Seeds follow a fixed sequence, so every run plays the same games in the same
+ * order. Large boards are left out: one random game on them takes seconds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmark {
+    private static final long FIRST_SEED = 0x2545F4914F6CDD1DL;
+
+    @Param({"6x12", "8x8", "16x16"})
+    public String size;
+
+    @Param({"2", "3"})
+    public int players;
+
+    private GameBoard board;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkBoards.empty(size, players);
+        seed = FIRST_SEED;
+    }
+
+    @Benchmark
+    public int randomGame() {
+        board.reset();
+        long state = seed;
+        seed = BenchmarkBoards.next(seed);
+        int limit = board.getWidth() * board.getHeight() * 100;
+        while (!board.isGameOver() && board.getMoveCount() < limit) {
+            state = BenchmarkBoards.next(state);
+            BenchmarkBoards.playRandomMove(board, state);
+        }
+        return board.getMoveCount();
+    }
+}
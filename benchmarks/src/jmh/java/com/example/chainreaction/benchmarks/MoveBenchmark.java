@@ -0,0 +1,85 @@
+package com.example.chainreaction.benchmarks;
+
+import com.example.chainreaction.GameBoard;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a single makeMove in three fixed positions per board size. Each invocation
+ * first restores the position with copyInto, which is a few array copies and is part of
+ * what gets measured; it is small next to a cascade but shows up on the empty board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoveBenchmark {
+    @Param({"6x12", "16x16", "64x64", "256x256"})
+    public String size;
+
+    private GameBoard board;
+    private GameBoard empty;
+    private GameBoard saturated;
+    private GameBoard late;
+    private int[] lateMoves;
+    private int lateMove;
+
+    @Setup
+    public void setUp() {
+        empty = BenchmarkBoards.empty(size, 2);
+        saturated = BenchmarkBoards.saturated(size);
+        late = BenchmarkBoards.randomPosition(size, 2, 0x5DEECE66DL, 0.9);
+        board = BenchmarkBoards.empty(size, 2);
+
+        // Every legal move in the late position, played in turn
+        int width = late.getWidth();
+        int cellCount = width * late.getHeight();
+        int[] moves = new int[cellCount];
+        int count = 0;
+        for (int i = 0; i < cellCount; i++) {
+            int owner = late.getOwner(i / width, i % width);
+            if (owner == 0 || owner == late.getCurrentPlayer()) {
+                moves[count++] = i;
+            }
+        }
+        lateMoves = Arrays.copyOf(moves, count);
+    }
+
+    /** One orb into the middle of an empty board: no cascade, just the bookkeeping. */
+    @Benchmark
+    public boolean emptyBoardMove() {
+        empty.copyInto(board);
+        return board.makeMove(board.getHeight() / 2, board.getWidth() / 2);
+    }
+
+    /** The longest cascade there is: every cell on the board explodes. */
+    @Benchmark
+    public int maximumCascade() {
+        saturated.copyInto(board);
+        board.makeMove(0, 0);
+        return board.getLastCascadeExplosions();
+    }
+
+    /** Each legal move of a 90% full random position in turn, mixing small and large cascades. */
+    @Benchmark
+    public int nearSaturatedMove() {
+        late.copyInto(board);
+        int move = lateMoves[lateMove];
+        lateMove = lateMove + 1 < lateMoves.length ? lateMove + 1 : 0;
+        board.makeMove(move / board.getWidth(), move % board.getWidth());
+        return board.getLastCascadeExplosions();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.chainreaction;
+
+/**
+ * A computer opponent. Implementations pick a move for whoever is to move on the board
+ * they are given. A player runs one search at a time.
+ */
+public interface AiPlayer {
+    /**
+     * Returns the chosen move as row * width + col, or -1 if the game is over. The board
+     * passed in is left untouched. Uses the player's own time budget.
+     */
+    int chooseMove(GameBoard board);
+
+    /**
+     * Like {@link #chooseMove(GameBoard)}, but searches until the control says to stop,
+     * reporting the best move so far to it as the search goes.
+     */
+    int chooseMove(GameBoard board, SearchControl control);
+
+    /**
+     * The reply the last search expected from the next player, as row * width + col, or
+     * -1 if it has no opinion. Used to ponder on the opponent's time.
+     */
+    int getExpectedReply();
+}
@@ -0,0 +1,177 @@
+package com.example.chainreaction;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs an {@link AiPlayer} on a background thread so the UI never waits for it. A search
+ * works on its own copy of the position, can be asked for its best move so far, cut short
+ * ({@link #moveNow()}) or thrown away ({@link #cancel()}), and always ends by its deadline.
+ *
+ * <p>After the AI has moved, {@link #ponder(GameBoard)} keeps searching on the position
+ * the AI expects after the opponent's reply. If that reply is what gets played, the next
+ * {@link #think} call simply gives the running search a deadline instead of starting over.
+ */
+public class AiThinker {
+    private final AiPlayer player;
+    private ExecutorService executor;
+    private Search current; // guarded by this
+
+    // Guarded by this: the reply the last search that ran to the end expected, and the
+    // position it expected it in
+    private int expectedReply = -1;
+    private int expectedPlayer;
+    private long expectedHash;
+
+    public interface Callback {
+        /** Called on the thinker's thread with the chosen move, row * width + col. */
+        void onMoveChosen(int move);
+    }
+
+    private final class Search implements Runnable {
+        final GameBoard position;
+        final SearchControl control = new SearchControl();
+        Callback callback; // null while pondering
+        boolean finished;
+        int result = -1;
+
+        Search(GameBoard position, Callback callback) {
+            this.position = position;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            int move = control.isCancelled() ? -1 : player.chooseMove(position, control);
+            int reply = move >= 0 && !control.isCancelled() ? player.getExpectedReply() : -1;
+            GameBoard after = null;
+            if (reply >= 0) {
+                after = copyOf(position);
+                after.setHashingEnabled(true);
+                after.makeMove(move / after.getWidth(), move % after.getWidth());
+            }
+            Callback target;
+            synchronized (AiThinker.this) {
+                finished = true;
+                result = move;
+                if (control.isCancelled()) {
+                    return; // superseded: its reply belongs to a position that's gone
+                }
+                expectedReply = reply;
+                if (after != null) {
+                    expectedPlayer = after.getCurrentPlayer();
+                    expectedHash = after.getPositionHash();
+                }
+                if (callback == null) {
+                    return;
+                }
+                target = callback;
+            }
+            target.onMoveChosen(move);
+        }
+    }
+
+    public AiThinker(AiPlayer player) {
+        this.player = player;
+    }
+
+    /**
+     * Starts choosing a move for the player to move on the given board, taking at most
+     * budgetMs. The board is copied before this returns, so the caller may keep using it.
+     * Any other search is cancelled unless it was pondering this very position.
+     */
+    public synchronized void think(GameBoard position, long budgetMs, Callback callback) {
+        Search ponder = current;
+        if (ponder != null && ponder.callback == null && !ponder.control.isCancelled()
+                && ponder.position.hasSamePosition(position)) {
+            // Ponder hit: keep the work done so far and start the clock
+            ponder.callback = callback;
+            ponder.control.setBudget(budgetMs);
+            if (ponder.finished) {
+                int move = ponder.result;
+                ensureExecutor().execute(() -> callback.onMoveChosen(move));
+            }
+            return;
+        }
+        Search search = new Search(copyOf(position), callback);
+        search.control.setBudget(budgetMs);
+        start(search);
+    }
+
+    /**
+     * Searches, with no deadline, the position reached if the opponent plays the reply the
+     * last search expected. Does nothing if there is no such reply, or if the given
+     * position is not the one that search left behind.
+     */
+    public synchronized void ponder(GameBoard position) {
+        cancel();
+        int reply = expectedReply;
+        if (reply < 0 || position.isGameOver() || position.getCurrentPlayer() != expectedPlayer) {
+            return;
+        }
+        GameBoard predicted = copyOf(position);
+        predicted.setHashingEnabled(true);
+        if (predicted.getPositionHash() != expectedHash) {
+            return;
+        }
+        int width = predicted.getWidth();
+        if (!predicted.makeMove(reply / width, reply % width) || predicted.isGameOver()) {
+            return;
+        }
+        start(new Search(predicted, null));
+    }
+
+    /** Best move of the running search so far, or -1. */
+    public synchronized int getBestMoveSoFar() {
+        return current != null ? current.control.getBestMove() : -1;
+    }
+
+    /** Makes the running search return its best move right away. */
+    public synchronized void moveNow() {
+        if (current != null) {
+            current.control.stop();
+        }
+    }
+
+    /** Stops the running search without reporting a move. */
+    public synchronized void cancel() {
+        if (current != null) {
+            current.control.cancel();
+            current = null;
+        }
+    }
+
+    /** Cancels any search and stops the thread; a later search starts a new one. */
+    public synchronized void shutdown() {
+        cancel();
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private void start(Search search) {
+        if (current != null) {
+            current.control.cancel();
+        }
+        current = search;
+        ensureExecutor().execute(search);
+    }
+
+    private ExecutorService ensureExecutor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ChainReactionAi");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    private static GameBoard copyOf(GameBoard position) {
+        GameBoard copy = new GameBoard(position.getTopology(), false);
+        position.copyInto(copy);
+        return copy;
+    }
+}
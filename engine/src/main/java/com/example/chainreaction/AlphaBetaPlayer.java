@@ -0,0 +1,329 @@
+package com.example.chainreaction;
+
+/**
+ * Alpha-beta computer opponent with iterative deepening. It searches a private copy of
+ * the board, playing and taking back moves through the board's undo journal, and caches
+ * results by Zobrist hash in a {@link TranspositionTable}. With three players the search
+ * is paranoid: every opponent is assumed to play against the player to move at the root.
+ * Given an {@link OpeningBook} it plays book moves without searching, and given an
+ * {@link EndgameSolver} it first tries to prove a win on boards small enough.
+ */
+public class AlphaBetaPlayer implements AiPlayer {
+    public static final int DEFAULT_MAX_DEPTH = 4;
+    public static final long DEFAULT_TIME_BUDGET_MS = 500;
+    private static final int TABLE_SIZE_BITS = 16;
+
+    private static final int WIN = 1000000;
+    private static final int WIN_BOUND = WIN - 10000; // scores past this are wins at some ply
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final int maxDepth;
+    private final long timeBudgetNanos;
+    private final TranspositionTable table = new TranspositionTable(TABLE_SIZE_BITS);
+
+    private OpeningBook book;
+    private EndgameSolver solver;
+    private long solverNodes;
+
+    private GameBoard board;
+    private int[][] moveLists;
+    private int rootPlayer;
+    private int tablePlayer; // root player and player count the table's scores belong to
+    private int tablePlayers;
+    private int rootBestMove;
+    private int expectedReply = -1;
+    private SearchControl control;
+    private boolean aborted;
+    private long nodes;
+    private int completedDepth;
+
+    public AlphaBetaPlayer() {
+        this(DEFAULT_MAX_DEPTH, DEFAULT_TIME_BUDGET_MS);
+    }
+
+    /**
+     * @param maxDepth depth (in moves) to stop deepening at
+     * @param timeBudgetMs time allowed per move; the deepest completed iteration wins
+     */
+    public AlphaBetaPlayer(int maxDepth, long timeBudgetMs) {
+        this.maxDepth = maxDepth;
+        this.timeBudgetNanos = timeBudgetMs * 1000000L;
+    }
+
+    /** Plays the book's move whenever the position is in it; null turns the book off. */
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Lets the player try to solve positions exactly before searching, spending at most
+     * maxNodes new positions per move; a proven win is played at once. Null turns it off.
+     */
+    public void setEndgameSolver(EndgameSolver solver, long maxNodes) {
+        this.solver = solver;
+        this.solverNodes = maxNodes;
+    }
+
+    @Override
+    public int chooseMove(GameBoard position) {
+        return chooseMove(position, SearchControl.withBudget(timeBudgetNanos / 1000000L));
+    }
+
+    @Override
+    public int chooseMove(GameBoard position, SearchControl control) {
+        expectedReply = -1;
+        if (position.isGameOver()) {
+            return -1;
+        }
+        if (solver != null && EndgameSolver.canSolve(position)
+                && solver.solve(position, solverNodes) == EndgameSolver.WIN) {
+            control.reportBestMove(solver.getBestMove());
+            return solver.getBestMove();
+        }
+        prepareBoard(position);
+        int bookMove = book != null ? book.lookUp(board) : -1;
+        if (bookMove >= 0) {
+            control.reportBestMove(bookMove);
+            return bookMove;
+        }
+        this.control = control;
+        rootPlayer = board.getCurrentPlayer();
+        aborted = false;
+        nodes = 0;
+        completedDepth = 0;
+        if (rootPlayer != tablePlayer || board.getNumPlayers() != tablePlayers) {
+            // Scores are from the root player's side, so another root makes them all wrong
+            table.clear();
+            tablePlayer = rootPlayer;
+            tablePlayers = board.getNumPlayers();
+        }
+        table.newSearch();
+
+        int bestMove = -1;
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            rootBestMove = -1;
+            int score = search(depth, -INFINITY, INFINITY, 0);
+            if (aborted) {
+                if (bestMove < 0) {
+                    bestMove = rootBestMove;
+                }
+                break;
+            }
+            bestMove = rootBestMove;
+            completedDepth = depth;
+            control.reportBestMove(bestMove);
+            if (score >= WIN - maxDepth || score <= -WIN + maxDepth) {
+                break; // the outcome is already decided
+            }
+        }
+        if (bestMove < 0) {
+            bestMove = generateMoves(0, -1) > 0 ? moveLists[0][0] : -1;
+        }
+        if (bestMove >= 0) {
+            expectedReply = lookUpReply(bestMove);
+        }
+        return bestMove;
+    }
+
+    @Override
+    public int getExpectedReply() {
+        return expectedReply;
+    }
+
+    // The table move of the position after our move is the reply the search expects
+    private int lookUpReply(int move) {
+        int width = board.getWidth();
+        board.makeMove(move / width, move % width);
+        int reply = -1;
+        if (!board.isGameOver()) {
+            int slot = table.probe(board.getPositionHash());
+            if (slot >= 0) {
+                reply = table.getMove(slot);
+            }
+        }
+        board.undoMove();
+        return reply;
+    }
+
+    /** Depth of the last fully searched iteration. */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /** Number of positions visited by the last search. */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    private void prepareBoard(GameBoard position) {
+        if (board == null || board.getTopology() != position.getTopology()) {
+            board = new GameBoard(position.getTopology(), false);
+            board.setHashingEnabled(true);
+            board.setJournalingEnabled(true);
+            moveLists = new int[maxDepth + 1][board.getWidth() * board.getHeight()];
+            table.clear(); // hashes don't tell shapes apart
+        }
+        position.copyInto(board);
+    }
+
+    private int search(int depth, int alpha, int beta, int ply) {
+        if ((++nodes & 1023) == 0 && control.shouldStop()) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        if (board.isGameOver()) {
+            return board.getPlayerScore(rootPlayer) > 0 ? WIN - ply : -WIN + ply;
+        }
+        if (depth == 0) {
+            return evaluate();
+        }
+
+        long key = board.getPositionHash();
+        int ttMove = -1;
+        int slot = table.probe(key);
+        if (slot >= 0) {
+            ttMove = table.getMove(slot);
+            if (ply > 0 && table.getDepth(slot) >= depth) {
+                int score = fromTable(table.getScore(slot), ply);
+                int flag = table.getFlag(slot);
+                if (flag == TranspositionTable.EXACT) {
+                    return score;
+                } else if (flag == TranspositionTable.LOWER_BOUND) {
+                    alpha = Math.max(alpha, score);
+                } else {
+                    beta = Math.min(beta, score);
+                }
+                if (alpha >= beta) {
+                    return score;
+                }
+            }
+        }
+
+        boolean maximizing = board.getCurrentPlayer() == rootPlayer;
+        int originalAlpha = alpha;
+        int originalBeta = beta;
+        int best = maximizing ? -INFINITY : INFINITY;
+        int bestMove = -1;
+        int width = board.getWidth();
+        int[] moves = moveLists[ply];
+        int moveCount = generateMoves(ply, ttMove);
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            board.makeMove(move / width, move % width);
+            int score = search(depth - 1, alpha, beta, ply + 1);
+            board.undoMove();
+            if (aborted) {
+                return 0;
+            }
+            if (maximizing ? score > best : score < best) {
+                best = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootBestMove = move;
+                }
+            }
+            if (maximizing) {
+                alpha = Math.max(alpha, best);
+            } else {
+                beta = Math.min(beta, best);
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        int flag = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                : best >= originalBeta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+        table.store(key, depth, flag, toTable(best, ply), bestMove);
+        return best;
+    }
+
+    // Wins are stored counted from the stored position rather than the root, so they stay
+    // right when the position is reached again at another ply
+    private static int toTable(int score, int ply) {
+        return score > WIN_BOUND ? score + ply : score < -WIN_BOUND ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score > WIN_BOUND ? score - ply : score < -WIN_BOUND ? score + ply : score;
+    }
+
+    /**
+     * Fills the move list for this ply with every legal move: the table move first, then
+     * cells that explode when played, then the rest. Returns the number of moves.
+     */
+    private int generateMoves(int ply, int ttMove) {
+        int[] moves = moveLists[ply];
+        int player = board.getCurrentPlayer();
+        int words = board.getBitWords();
+        int count = 0;
+        long ttBit = 0;
+        if (ttMove >= 0 && board.isLegalMove(player, ttMove)) {
+            moves[count++] = ttMove;
+            ttBit = 1L << ttMove;
+        }
+        int ttWord = ttMove >>> 6;
+        for (int word = 0; word < words; word++) {
+            long skip = word == ttWord ? ttBit : 0;
+            count = GameBoard.appendBits(board.criticalBits(player, word) & ~skip, word, moves, count);
+        }
+        for (int word = 0; word < words; word++) {
+            long skip = word == ttWord ? ttBit : 0;
+            long quiet = board.legalBits(player, word) & ~board.criticalBits(player, word);
+            count = GameBoard.appendBits(quiet & ~skip, word, moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Scores the position for the root player: orbs held, with extra weight for cells with
+     * few neighbours (corners and edges) and for cells about to explode, and a discount
+     * for cells sitting next to an opponent's critical cell, which are likely to be
+     * captured.
+     */
+    private int evaluate() {
+        BoardTopology topology = board.getTopology();
+        int cellCount = topology.getCellCount();
+        int maxThreshold = topology.getMaxThreshold();
+        int mine = 0;
+        int theirs = 0;
+        for (int index = 0; index < cellCount; index++) {
+            int owner = board.getOwnerAt(index);
+            if (owner == 0) {
+                continue;
+            }
+            int count = board.getOrbsAt(index);
+            int threshold = board.getThresholdAt(index);
+            int value = count * 2 + (maxThreshold - threshold);
+            if (count == threshold - 1) {
+                value += 2;
+            }
+            if (isThreatened(topology, index, owner)) {
+                value -= count + 2;
+            }
+            if (owner == rootPlayer) {
+                mine += value;
+            } else {
+                theirs += value;
+            }
+        }
+        return mine * (board.getNumPlayers() - 1) - theirs;
+    }
+
+    private boolean isThreatened(BoardTopology topology, int index, int owner) {
+        for (int k = topology.getNeighbourStart(index), end = topology.getNeighbourEnd(index); k < end; k++) {
+            if (isEnemyCritical(topology.getNeighbour(k), owner)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isEnemyCritical(int index, int owner) {
+        int neighbour = board.getOwnerAt(index);
+        return neighbour != 0 && neighbour != owner
+                && board.getOrbsAt(index) == board.getThresholdAt(index) - 1;
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.chainreaction;
+
+import java.util.Arrays;
+
+/**
+ * Many independent games stepped in lockstep, for training and simulation. All boards
+ * live in a few flat primitive arrays rather than one {@link GameBoard} each, so a step
+ * touches no objects, and a board carries none of GameBoard's optional extras (undo
+ * journal, hashing, bitsets, events, tracing): a move without an explosion costs a few
+ * array writes.
+ *
+ * <p>The rules are exactly GameBoard's. A chain reaction is resolved the same way too:
+ * breadth-first, one generation at a time, exploding only the cells the last generation
+ * pushed over their threshold, with per-player orb counts kept up to date as cells change
+ * and an early stop once only the mover has orbs. Only the classic grid is supported, at
+ * least 2x2: the padded layout has no room for the other {@link BoardTopology} shapes,
+ * and the rules below 2x2 are GameBoard's own special case.
+ *
+ * <p>Board state is stored with a one-cell border of padding, so a cell's neighbours are
+ * always at fixed offsets: row r, column c of board b is at
+ * {@link #cellOffset(int, int, int)}. The arrays returned by {@link #getOwners()} and
+ * {@link #getOrbs()} are the live state, so observations need no copying; padding cells
+ * always read 0.
+ */
+public class BatchEnv {
+    public static final int STEP_OK = 0;
+    public static final int STEP_ILLEGAL = 1;   // the board was left unchanged
+    public static final int STEP_GAME_OVER = 2; // the board's game had already ended
+    public static final int STEP_SKIPPED = 3;   // negative action
+
+    private static final byte NEVER = Byte.MAX_VALUE; // threshold of padding cells
+
+    private final int boards;
+    private final int width;
+    private final int height;
+    private final int numPlayers;
+    private final int rowStride;
+    private final int boardStride;
+    private final int total;
+
+    // Padded state: one border row before the first board, one after every board, and
+    // one column either side of every row
+    private final byte[] owners;
+    private final byte[] orbs;
+    private final byte[] thresholds;
+
+    private final int[] currentPlayers;
+    private final int[] moveCounts;
+    private final boolean[] gameOver;
+    private final int[] playerOrbs; // board * 4 + player
+    private final int[] lastStatus;
+    private final int[] lastExplosions;
+
+    // Scratch for resolving one chain reaction, shared by all boards
+    private final int[] directions;
+    private int[] wave;
+    private int[] nextWave;
+    private final int[] touched;
+    private final int[] touchedStamp; // by state offset: last generation that touched the cell
+    private int stamp;
+
+    public BatchEnv(int boards, int width, int height, int numPlayers) {
+        if (numPlayers < 2 || numPlayers > 3) {
+            throw new IllegalArgumentException("A batch needs 2 or 3 players: " + numPlayers);
+        }
+        if (width < 2 || height < 2) {
+            throw new IllegalArgumentException("A batch needs boards of at least 2x2: " + width + "x" + height);
+        }
+        BoardTopology topology = BoardTopology.grid(width, height);
+        this.boards = boards;
+        this.width = width;
+        this.height = height;
+        this.numPlayers = numPlayers;
+        this.rowStride = width + 2;
+        this.boardStride = (height + 1) * rowStride;
+        this.total = 2 * rowStride + boards * boardStride;
+        this.owners = new byte[total];
+        this.orbs = new byte[total];
+        this.thresholds = new byte[total];
+        this.currentPlayers = new int[boards];
+        this.moveCounts = new int[boards];
+        this.gameOver = new boolean[boards];
+        this.playerOrbs = new int[boards * 4];
+        this.lastStatus = new int[boards];
+        this.lastExplosions = new int[boards];
+        this.directions = new int[] {-rowStride, rowStride, -1, 1};
+        this.wave = new int[width * height];
+        this.nextWave = new int[width * height];
+        this.touched = new int[width * height];
+        this.touchedStamp = new int[total];
+
+        Arrays.fill(thresholds, NEVER);
+        for (int b = 0; b < boards; b++) {
+            for (int row = 0; row < height; row++) {
+                for (int col = 0; col < width; col++) {
+                    int p = cellOffset(b, row, col);
+                    thresholds[p] = (byte) topology.getThreshold(row * width + col);
+                }
+            }
+        }
+        resetAll();
+    }
+
+    public int getBoardCount() {
+        return boards;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** Position of a cell in the state arrays. */
+    public int cellOffset(int board, int row, int col) {
+        return rowStride + board * boardStride + row * rowStride + col + 1;
+    }
+
+    /** Distance between vertically adjacent cells in the state arrays. */
+    public int getRowStride() {
+        return rowStride;
+    }
+
+    /** Distance between the same cell on consecutive boards in the state arrays. */
+    public int getBoardStride() {
+        return boardStride;
+    }
+
+    /** Live owner of every cell (0 for none), laid out as described by {@link #cellOffset}. */
+    public byte[] getOwners() {
+        return owners;
+    }
+
+    /** Live orb count of every cell, laid out as described by {@link #cellOffset}. */
+    public byte[] getOrbs() {
+        return orbs;
+    }
+
+    public int getCurrentPlayer(int board) {
+        return currentPlayers[board];
+    }
+
+    public int getMoveCount(int board) {
+        return moveCounts[board];
+    }
+
+    public boolean isGameOver(int board) {
+        return gameOver[board];
+    }
+
+    /** The only player left with orbs once the game is over, else 0. */
+    public int getWinner(int board) {
+        if (!gameOver[board]) {
+            return 0;
+        }
+        for (int p = 1; p <= numPlayers; p++) {
+            if (playerOrbs[board * 4 + p] > 0) {
+                return p;
+            }
+        }
+        return 0;
+    }
+
+    public int getPlayerScore(int board, int playerId) {
+        return playerOrbs[board * 4 + playerId];
+    }
+
+    /** What the last {@link #step} did to the board: one of the STEP_ constants. */
+    public int getLastStatus(int board) {
+        return lastStatus[board];
+    }
+
+    /** Total number of cell explosions caused by the board's last move. */
+    public int getLastExplosions(int board) {
+        return lastExplosions[board];
+    }
+
+    public void resetAll() {
+        for (int b = 0; b < boards; b++) {
+            reset(b);
+        }
+    }
+
+    public void reset(int board) {
+        int start = rowStride + board * boardStride;
+        Arrays.fill(owners, start, start + boardStride, (byte) 0);
+        Arrays.fill(orbs, start, start + boardStride, (byte) 0);
+        Arrays.fill(playerOrbs, board * 4, board * 4 + 4, 0);
+        currentPlayers[board] = 1;
+        moveCounts[board] = 0;
+        gameOver[board] = false;
+        lastStatus[board] = STEP_OK;
+        lastExplosions[board] = 0;
+    }
+
+    /**
+     * Plays one move on every board: actions[b] is row * width + col for board b, or
+     * negative to leave that board alone. Illegal moves and finished games leave the
+     * board unchanged; see {@link #getLastStatus(int)}.
+     */
+    public void step(int[] actions) {
+        for (int b = 0; b < boards; b++) {
+            lastExplosions[b] = 0;
+            int action = actions[b];
+            if (action < 0) {
+                lastStatus[b] = STEP_SKIPPED;
+                continue;
+            }
+            if (gameOver[b]) {
+                lastStatus[b] = STEP_GAME_OVER;
+                continue;
+            }
+            int p = action < width * height ? cellOffset(b, action / width, action % width) : -1;
+            int player = currentPlayers[b];
+            if (p < 0 || (owners[p] != 0 && owners[p] != player)) {
+                lastStatus[b] = STEP_ILLEGAL;
+                continue;
+            }
+            lastStatus[b] = STEP_OK;
+            owners[p] = (byte) player;
+            orbs[p]++;
+            playerOrbs[b * 4 + player]++;
+            if (orbs[p] >= thresholds[p]) {
+                resolve(b, p, player);
+            }
+            finishMove(b);
+        }
+    }
+
+    /**
+     * Resolves the chain reaction set off at cell p of board b, as GameBoard does: each
+     * generation explodes its wave, every exploding cell giving one orb to each neighbour
+     * and keeping any extra it received, and the cells left at or over their threshold
+     * make the next wave. Stops early once only the mover has orbs.
+     */
+    private void resolve(int b, int p, int player) {
+        int base = b * 4;
+        int waveSize = 1;
+        wave[0] = p;
+        while (waveSize > 0) {
+            lastExplosions[b] += waveSize;
+            stamp++;
+            int touchedCount = 0;
+            for (int i = 0; i < waveSize; i++) {
+                int cell = wave[i];
+                int remaining = orbs[cell] - thresholds[cell];
+                playerOrbs[base + owners[cell]] -= thresholds[cell];
+                orbs[cell] = (byte) remaining;
+                if (remaining == 0) {
+                    owners[cell] = 0;
+                }
+                touchedCount = markTouched(cell, touchedCount);
+                for (int direction : directions) {
+                    int neighbour = cell + direction;
+                    if (thresholds[neighbour] == NEVER) {
+                        continue; // padding
+                    }
+                    int owner = owners[neighbour];
+                    if (owner != player) {
+                        // Captured orbs change hands
+                        playerOrbs[base + owner] -= orbs[neighbour];
+                        playerOrbs[base + player] += orbs[neighbour];
+                        owners[neighbour] = (byte) player;
+                    }
+                    playerOrbs[base + player]++;
+                    orbs[neighbour]++;
+                    touchedCount = markTouched(neighbour, touchedCount);
+                }
+            }
+
+            // Only cells touched in this generation can have reached their threshold
+            int nextSize = 0;
+            for (int i = 0; i < touchedCount; i++) {
+                int cell = touched[i];
+                if (orbs[cell] >= thresholds[cell]) {
+                    nextWave[nextSize++] = cell;
+                }
+            }
+            int[] swap = wave;
+            wave = nextWave;
+            nextWave = swap;
+            waveSize = nextSize;
+
+            if (playerOrbs[base + 1] + playerOrbs[base + 2] + playerOrbs[base + 3] == playerOrbs[base + player]) {
+                break;
+            }
+        }
+    }
+
+    private int markTouched(int cell, int touchedCount) {
+        if (touchedStamp[cell] != stamp) {
+            touchedStamp[cell] = stamp;
+            touched[touchedCount++] = cell;
+        }
+        return touchedCount;
+    }
+
+    /** Checks for game over and passes the turn on. */
+    private void finishMove(int b) {
+        int base = b * 4;
+        moveCounts[b]++;
+        if (moveCounts[b] >= numPlayers) {
+            int playersWithOrbs = 0;
+            for (int p = 1; p <= numPlayers; p++) {
+                if (playerOrbs[base + p] > 0) {
+                    playersWithOrbs++;
+                }
+            }
+            gameOver[b] = playersWithOrbs == 1;
+        }
+        if (!gameOver[b]) {
+            currentPlayers[b] = currentPlayers[b] == numPlayers ? 1 : currentPlayers[b] + 1;
+        }
+    }
+}
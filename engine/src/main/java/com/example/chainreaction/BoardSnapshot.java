@@ -0,0 +1,123 @@
+package com.example.chainreaction;
+
+/**
+ * Copy of everything the UI needs to show a {@link GameBoard}: cell owners and orb counts,
+ * which cells are about to explode, whose turn it is, scores, game-over state and the
+ * cascade of the move that led here. The engine thread fills one snapshot while the UI
+ * thread reads another, and ownership changes hands only through the UI thread's message
+ * queue, so no locking is needed.
+ */
+public class BoardSnapshot {
+    private final int width;
+    private final int height;
+    private final byte[] owners;
+    private final byte[] orbs;
+    private final long[] criticalBits;
+    private final int[] playerScores = new int[4]; // index 0 unused, 1-3 for players
+    private final CascadeEvents events = new CascadeEvents();
+    private int currentPlayer = 1;
+    private int numPlayers;
+    private int moveCount;
+    private boolean gameOver;
+    private int winner;
+
+    public BoardSnapshot(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.owners = new byte[width * height];
+        this.orbs = new byte[width * height];
+        this.criticalBits = new long[(width * height + 63) >>> 6];
+    }
+
+    /**
+     * Captures the board's current state. The cascade is copied too when {@code withEvents}
+     * is set and the board records events; otherwise the snapshot carries no move.
+     */
+    public void copyFrom(GameBoard board, boolean withEvents) {
+        board.copyState(owners, orbs);
+        board.copyCriticalBits(criticalBits);
+        currentPlayer = board.getCurrentPlayer();
+        numPlayers = board.getNumPlayers();
+        moveCount = board.getMoveCount();
+        gameOver = board.isGameOver();
+        winner = 0;
+        for (int player = 1; player <= 3; player++) {
+            playerScores[player] = board.getPlayerScore(player);
+            if (gameOver && playerScores[player] > 0) {
+                winner = player;
+            }
+        }
+        CascadeEvents boardEvents = board.getLastMoveEvents();
+        if (withEvents && boardEvents != null) {
+            events.copyFrom(boardEvents);
+        } else {
+            events.begin(-1, 0);
+        }
+    }
+
+    /** Copies the cell owners and orb counts into the given arrays, row-major. */
+    public void copyState(byte[] ownersOut, byte[] orbsOut) {
+        System.arraycopy(owners, 0, ownersOut, 0, owners.length);
+        System.arraycopy(orbs, 0, orbsOut, 0, orbs.length);
+    }
+
+    /** Copies the cells about to explode as a bitset, 64 cells per long, row-major. */
+    public void copyCriticalBits(long[] out) {
+        System.arraycopy(criticalBits, 0, out, 0, criticalBits.length);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getOwner(int row, int col) {
+        return owners[row * width + col];
+    }
+
+    public int getOrbs(int row, int col) {
+        return orbs[row * width + col];
+    }
+
+    /** True if the cell holds one orb less than it takes to explode. */
+    public boolean isCritical(int row, int col) {
+        int index = row * width + col;
+        return (criticalBits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /** The winning player once the game is over, otherwise 0. */
+    public int getWinner() {
+        return winner;
+    }
+
+    public int getPlayerScore(int playerId) {
+        if (playerId >= 1 && playerId <= 3) {
+            return playerScores[playerId];
+        }
+        return 0;
+    }
+
+    /** Cascade of the move that produced this snapshot; its move is -1 if there was none. */
+    public CascadeEvents getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.chainreaction;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shape of a board: which cells are next to which, and so how many orbs each cell holds
+ * before it explodes (one per neighbour). Cells are still indexed row * width + col.
+ *
+ * <p>Neighbours are stored flat: those of cell i are {@code neighbours[neighbourStart[i]]}
+ * up to {@code neighbours[neighbourStart[i + 1]]}, in a fixed order. The tables are built
+ * once per shape and size and shared by every board, so the cascade loop only ever reads
+ * two arrays whatever the shape.
+ */
+public final class BoardTopology {
+    /** The classic board: up, down, left and right, with fewer neighbours on the edges. */
+    public static final int GRID = 0;
+    /** A grid whose edges wrap around, so every cell has four neighbours. */
+    public static final int TORUS = 1;
+    /** Hexagons in offset rows, odd rows shifted half a cell right: up to six neighbours. */
+    public static final int HEX = 2;
+
+    private static final Map<Long, BoardTopology> TOPOLOGIES = new HashMap<>();
+
+    private final int kind;
+    private final int width;
+    private final int height;
+    final int[] neighbourStart;
+    final int[] neighbours;
+    final byte[] thresholds;
+    private final int maxThreshold;
+
+    public static BoardTopology grid(int width, int height) {
+        return of(GRID, width, height);
+    }
+
+    public static BoardTopology torus(int width, int height) {
+        return of(TORUS, width, height);
+    }
+
+    public static BoardTopology hex(int width, int height) {
+        return of(HEX, width, height);
+    }
+
+    /** Returns the shared topology of the given kind and size, building it on first use. */
+    public static synchronized BoardTopology of(int kind, int width, int height) {
+        if (kind < GRID || kind > HEX) {
+            throw new IllegalArgumentException("Unknown topology: " + kind);
+        }
+        if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE / 8) {
+            throw new IllegalArgumentException("Bad board size: " + width + "x" + height);
+        }
+        if (kind == TORUS && (width < 3 || height < 3)) {
+            // Smaller tori would make a cell its own neighbour or the same neighbour twice
+            throw new IllegalArgumentException("A torus needs at least 3x3 cells: " + width + "x" + height);
+        }
+        Long key = ((long) kind << 62) | ((long) width << 31) | height;
+        BoardTopology topology = TOPOLOGIES.get(key);
+        if (topology == null) {
+            topology = new BoardTopology(kind, width, height);
+            TOPOLOGIES.put(key, topology);
+        }
+        return topology;
+    }
+
+    private BoardTopology(int kind, int width, int height) {
+        this.kind = kind;
+        this.width = width;
+        this.height = height;
+        int cellCount = width * height;
+        int[] scratch = new int[cellCount * 6];
+        neighbourStart = new int[cellCount + 1];
+        thresholds = new byte[cellCount];
+        int size = 0;
+        int max = 0;
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int index = row * width + col;
+                neighbourStart[index] = size;
+                if (kind == HEX) {
+                    // Odd rows sit half a cell to the right, so their diagonals lean right
+                    int shift = row & 1;
+                    size = add(scratch, size, row - 1, col - 1 + shift);
+                    size = add(scratch, size, row - 1, col + shift);
+                    size = add(scratch, size, row, col - 1);
+                    size = add(scratch, size, row, col + 1);
+                    size = add(scratch, size, row + 1, col - 1 + shift);
+                    size = add(scratch, size, row + 1, col + shift);
+                } else if (kind == TORUS) {
+                    size = add(scratch, size, (row + height - 1) % height, col);
+                    size = add(scratch, size, (row + 1) % height, col);
+                    size = add(scratch, size, row, (col + width - 1) % width);
+                    size = add(scratch, size, row, (col + 1) % width);
+                } else {
+                    size = add(scratch, size, row - 1, col);
+                    size = add(scratch, size, row + 1, col);
+                    size = add(scratch, size, row, col - 1);
+                    size = add(scratch, size, row, col + 1);
+                }
+                int threshold = size - neighbourStart[index];
+                thresholds[index] = (byte) threshold;
+                max = Math.max(max, threshold);
+            }
+        }
+        neighbourStart[cellCount] = size;
+        neighbours = new int[size];
+        System.arraycopy(scratch, 0, neighbours, 0, size);
+        maxThreshold = max;
+    }
+
+    // Appends the cell if it is on the board
+    private int add(int[] out, int size, int row, int col) {
+        if (row >= 0 && row < height && col >= 0 && col < width) {
+            out[size++] = row * width + col;
+        }
+        return size;
+    }
+
+    /** One of {@link #GRID}, {@link #TORUS} or {@link #HEX}. */
+    public int getKind() {
+        return kind;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCellCount() {
+        return width * height;
+    }
+
+    /** Orbs the cell holds when it explodes: its number of neighbours. */
+    public int getThreshold(int index) {
+        return thresholds[index];
+    }
+
+    /** Highest threshold of any cell, 4 on grids and tori and up to 6 on hex boards. */
+    public int getMaxThreshold() {
+        return maxThreshold;
+    }
+
+    /** Position of the cell's first neighbour for {@link #getNeighbour(int)}. */
+    public int getNeighbourStart(int index) {
+        return neighbourStart[index];
+    }
+
+    /** Position just past the cell's last neighbour. */
+    public int getNeighbourEnd(int index) {
+        return neighbourStart[index + 1];
+    }
+
+    /** Cell index of the neighbour at the given position. */
+    public int getNeighbour(int position) {
+        return neighbours[position];
+    }
+
+    @Override
+    public String toString() {
+        return (kind == HEX ? "hex " : kind == TORUS ? "torus " : "grid ") + width + "x" + height;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.chainreaction;
+
+/**
+ * Compact record of the chain reaction caused by one move. Every orb that leaves an
+ * exploding cell is stored as a (from, to, player) triple of cell indices, grouped into
+ * waves that match the engine's explosion generations. The buffers are reused from move
+ * to move and only grow, so recording does not allocate once warmed up.
+ */
+public class CascadeEvents {
+    private int[] flights = new int[3 * 64]; // from, to, player
+    private int[] waveEnds = new int[16];    // flight count at the end of each wave
+    private int flightCount;
+    private int waveCount;
+    private int move = -1;
+    private int player;
+
+    void begin(int move, int player) {
+        this.move = move;
+        this.player = player;
+        flightCount = 0;
+        waveCount = 0;
+    }
+
+    void addFlight(int from, int to, int player) {
+        int offset = flightCount * 3;
+        if (offset + 3 > flights.length) {
+            int[] grown = new int[flights.length * 2];
+            System.arraycopy(flights, 0, grown, 0, offset);
+            flights = grown;
+        }
+        flights[offset] = from;
+        flights[offset + 1] = to;
+        flights[offset + 2] = player;
+        flightCount++;
+    }
+
+    void endWave() {
+        if (waveCount == waveEnds.length) {
+            int[] grown = new int[waveEnds.length * 2];
+            System.arraycopy(waveEnds, 0, grown, 0, waveCount);
+            waveEnds = grown;
+        }
+        waveEnds[waveCount++] = flightCount;
+    }
+
+    /** Makes this record an exact copy of another, growing the buffers if needed. */
+    void copyFrom(CascadeEvents other) {
+        if (flights.length < other.flightCount * 3) {
+            flights = new int[other.flights.length];
+        }
+        if (waveEnds.length < other.waveCount) {
+            waveEnds = new int[other.waveEnds.length];
+        }
+        System.arraycopy(other.flights, 0, flights, 0, other.flightCount * 3);
+        System.arraycopy(other.waveEnds, 0, waveEnds, 0, other.waveCount);
+        flightCount = other.flightCount;
+        waveCount = other.waveCount;
+        move = other.move;
+        player = other.player;
+    }
+
+    /** Cell index of the move that started the cascade, or -1 before the first move. */
+    public int getMove() {
+        return move;
+    }
+
+    /** Player who made the move. */
+    public int getPlayer() {
+        return player;
+    }
+
+    public int getWaveCount() {
+        return waveCount;
+    }
+
+    /** Index of the first flight in the given wave. */
+    public int getWaveStart(int wave) {
+        return wave == 0 ? 0 : waveEnds[wave - 1];
+    }
+
+    /** Index one past the last flight in the given wave. */
+    public int getWaveEnd(int wave) {
+        return waveEnds[wave];
+    }
+
+    public int getFlightCount() {
+        return flightCount;
+    }
+
+    public int getFrom(int flight) {
+        return flights[flight * 3];
+    }
+
+    public int getTo(int flight) {
+        return flights[flight * 3 + 1];
+    }
+
+    public int getPlayer(int flight) {
+        return flights[flight * 3 + 2];
+    }
+}
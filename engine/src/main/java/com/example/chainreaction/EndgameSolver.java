@@ -0,0 +1,182 @@
+package com.example.chainreaction;
+
+/**
+ * Exact solver for two-player games on small boards. It plays the position out to the
+ * end with the board's own rules, on a private copy taken back move by move through the
+ * undo journal, and proves whether the player to move wins.
+ *
+ * <p>Every move adds an orb and explosions only move orbs around, so a game can't last
+ * longer than the board can hold orbs and there are no draws. Each searched position is
+ * packed into two longs, half a byte per cell for owner and orbs plus the turn, and its
+ * result kept in an off-heap {@link EndgameTable} shared by later calls. A node budget
+ * keeps the search bounded on early positions that are too big to solve.
+ */
+public class EndgameSolver {
+    /** Largest board, in cells, that fits the packed position. */
+    public static final int MAX_CELLS = 28;
+    public static final int DEFAULT_TABLE_BITS = 20; // 16 MB
+
+    public static final int LOSS = -1;
+    public static final int UNKNOWN = 0;
+    public static final int WIN = 1;
+
+    private final EndgameTable table;
+    private GameBoard board;
+    private int[][] moveLists;
+    private long maxNodes;
+    private long nodes;
+    private boolean aborted;
+    private int bestMove = -1;
+
+    public EndgameSolver() {
+        this(DEFAULT_TABLE_BITS);
+    }
+
+    /** @param tableBits the table holds 2^tableBits positions of 16 bytes */
+    public EndgameSolver(int tableBits) {
+        table = new EndgameTable(tableBits);
+    }
+
+    /**
+     * True if the position is one the solver handles: two players, at most
+     * {@link #MAX_CELLS} cells, and no cell that holds more than 3 orbs.
+     */
+    public static boolean canSolve(GameBoard position) {
+        return position.getNumPlayers() == 2
+                && position.getWidth() * position.getHeight() <= MAX_CELLS
+                && position.getTopology().getMaxThreshold() <= 4;
+    }
+
+    /**
+     * Solves the position for the player to move: {@link #WIN} or {@link #LOSS} if proven,
+     * {@link #UNKNOWN} if it took more than maxNodes new positions or the game is over.
+     * After a win, {@link #getBestMove()} is a move that keeps it.
+     */
+    public int solve(GameBoard position, long maxNodes) {
+        if (!canSolve(position)) {
+            throw new IllegalArgumentException("Position too large to solve: " + position.getTopology());
+        }
+        bestMove = -1;
+        if (position.isGameOver()) {
+            return UNKNOWN;
+        }
+        if (board == null || board.getTopology() != position.getTopology()) {
+            if (board != null) {
+                table.clear(); // packed positions don't record the board's shape
+            }
+            board = new GameBoard(position.getTopology(), false);
+            board.setJournalingEnabled(true);
+            int cells = position.getWidth() * position.getHeight();
+            moveLists = new int[cells * 3 + 2][cells]; // no game outlasts the board's capacity
+        }
+        position.copyInto(board);
+        this.maxNodes = maxNodes;
+        nodes = 0;
+        aborted = false;
+        int result = search(0);
+        return aborted ? UNKNOWN : result;
+    }
+
+    /**
+     * Move behind the last result: one that wins after {@link #WIN}, any legal move after
+     * {@link #LOSS}, -1 otherwise.
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /** Number of new positions searched by the last call. */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /** Forgets every solved position. */
+    public void clear() {
+        table.clear();
+    }
+
+    private int search(int ply) {
+        long low = packLow();
+        long high = packHigh();
+        int stored = table.probe(low, high);
+        if (stored >= 0) {
+            boolean win = (stored & EndgameTable.WIN_FLAG) != 0;
+            if (ply == 0) {
+                bestMove = win ? stored & EndgameTable.NO_MOVE : firstMove();
+            }
+            return win ? WIN : LOSS;
+        }
+        if (++nodes > maxNodes) {
+            aborted = true;
+            return UNKNOWN;
+        }
+
+        int width = board.getWidth();
+        int[] moves = moveLists[ply];
+        int count = generateMoves(moves);
+        int result = LOSS;
+        int winningMove = EndgameTable.NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            board.makeMove(move / width, move % width);
+            int value = board.isGameOver() ? WIN : -search(ply + 1); // only the mover can be left
+            board.undoMove();
+            if (aborted) {
+                return UNKNOWN;
+            }
+            if (value == WIN) {
+                result = WIN;
+                winningMove = move;
+                break;
+            }
+        }
+        table.store(low, high, result == WIN, winningMove);
+        if (ply == 0) {
+            bestMove = result == WIN ? winningMove : (count > 0 ? moves[0] : -1);
+        }
+        return result;
+    }
+
+    // Critical cells first: they explode, so they decide games soonest
+    private int generateMoves(int[] moves) {
+        int player = board.getCurrentPlayer();
+        int words = board.getBitWords();
+        int count = 0;
+        for (int word = 0; word < words; word++) {
+            count = GameBoard.appendBits(board.criticalBits(player, word), word, moves, count);
+        }
+        for (int word = 0; word < words; word++) {
+            long quiet = board.legalBits(player, word) & ~board.criticalBits(player, word);
+            count = GameBoard.appendBits(quiet, word, moves, count);
+        }
+        return count;
+    }
+
+    private int firstMove() {
+        return generateMoves(moveLists[0]) > 0 ? moveLists[0][0] : -1;
+    }
+
+    // Cells 0-15, half a byte each: owner in the high two bits, orbs in the low two
+    private long packLow() {
+        int cells = Math.min(16, board.getWidth() * board.getHeight());
+        long key = 0;
+        for (int i = 0; i < cells; i++) {
+            key |= (long) (board.getOwnerAt(i) << 2 | board.getOrbsAt(i)) << (i * 4);
+        }
+        return key;
+    }
+
+    // Cells 16-27, then the player to move and whether the first round is still on
+    private long packHigh() {
+        int cells = board.getWidth() * board.getHeight();
+        long key = 0;
+        for (int i = 16; i < cells; i++) {
+            key |= (long) (board.getOwnerAt(i) << 2 | board.getOrbsAt(i)) << ((i - 16) * 4);
+        }
+        key |= (long) (board.getCurrentPlayer() - 1) << 48;
+        if (board.getMoveCount() < board.getNumPlayers()) {
+            key |= 1L << 49;
+        }
+        return key;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.chainreaction;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Results of the {@link EndgameSolver}, kept off the Java heap in a direct buffer so a
+ * large table costs the garbage collector nothing. Each 16-byte entry is the position's
+ * two key words; the high word also carries the result, the winning move and a flag
+ * marking the entry as used. Results are exact, so a full bucket simply overwrites its
+ * first entry.
+ */
+class EndgameTable {
+    static final int NO_MOVE = 31;
+    static final int WIN_FLAG = 32; // in probe results, above the move
+    static final int KEY_HIGH_BITS = 50;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int PROBES = 4;
+    private static final long KEY_HIGH_MASK = (1L << KEY_HIGH_BITS) - 1;
+    private static final int MOVE_SHIFT = KEY_HIGH_BITS;
+    private static final long WIN_BIT = 1L << 55;
+    private static final long USED_BIT = 1L << 63;
+
+    private final ByteBuffer entries;
+    private final int mask;
+
+    /** Creates a table with 2^sizeBits entries of 16 bytes. */
+    EndgameTable(int sizeBits) {
+        if (sizeBits < 4 || sizeBits > 26) {
+            throw new IllegalArgumentException("Table size must be 2^4 to 2^26 entries: 2^" + sizeBits);
+        }
+        entries = ByteBuffer.allocateDirect(ENTRY_BYTES << sizeBits).order(ByteOrder.nativeOrder());
+        mask = (1 << sizeBits) - 1;
+    }
+
+    void clear() {
+        for (int offset = 0; offset < entries.capacity(); offset += 8) {
+            entries.putLong(offset, 0L);
+        }
+    }
+
+    /**
+     * Returns the stored winning move, or {@link #NO_MOVE}, plus {@link #WIN_FLAG} if the
+     * player to move wins; -1 if the position is not in the table.
+     */
+    int probe(long low, long high) {
+        int slot = home(low, high);
+        for (int i = 0; i < PROBES; i++) {
+            int offset = ((slot + i) & mask) * ENTRY_BYTES;
+            long storedHigh = entries.getLong(offset + 8);
+            if ((storedHigh & USED_BIT) == 0) {
+                return -1;
+            }
+            if ((storedHigh & KEY_HIGH_MASK) == high && entries.getLong(offset) == low) {
+                int move = (int) (storedHigh >>> MOVE_SHIFT) & NO_MOVE;
+                return (storedHigh & WIN_BIT) != 0 ? move | WIN_FLAG : move;
+            }
+        }
+        return -1;
+    }
+
+    void store(long low, long high, boolean win, int move) {
+        int slot = home(low, high);
+        int target = slot;
+        for (int i = 0; i < PROBES; i++) {
+            int candidate = (slot + i) & mask;
+            if ((entries.getLong(candidate * ENTRY_BYTES + 8) & USED_BIT) == 0) {
+                target = candidate;
+                break;
+            }
+        }
+        int offset = target * ENTRY_BYTES;
+        entries.putLong(offset, low);
+        entries.putLong(offset + 8, high | (long) move << MOVE_SHIFT | (win ? WIN_BIT : 0) | USED_BIT);
+    }
+
+    private int home(long low, long high) {
+        long z = low ^ (high * 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 31)) * 0xBF58476D1CE4E5B9L;
+        return (int) (z ^ (z >>> 29)) & mask;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.chainreaction;
+
+/**
+ * Level-gated trace facility for the game engine. Call sites guard every event with
+ * {@link #isEnabled(int)}, so when tracing is off nothing is built or boxed: each event is
+ * a type code plus three int arguments handed to the installed {@link Sink}.
+ *
+ * <p>The sink and level are published together as one immutable setting, so any thread
+ * sees either the old pair or the new one. Engine threads may emit concurrently, so a
+ * sink must be thread-safe; a board can opt out with
+ * {@link GameBoard#setTracingEnabled(boolean)} or be created untraced.
+ */
+public final class EngineTrace {
+    public static final int LEVEL_OFF = 0;
+    public static final int LEVEL_MOVE = 1; // one event per move, turn change or game over
+    public static final int LEVEL_CELL = 2; // one event per orb added or cell exploded
+
+    // Event types and their (a, b, c) arguments
+    public static final int EVENT_INIT = 1;      // width, height, starting player
+    public static final int EVENT_MOVE = 2;      // player, cell index, orbs before the move
+    public static final int EVENT_REJECTED = 3;  // player, cell index, reason
+    public static final int EVENT_ADD_ORB = 4;   // player, cell index, previous owner
+    public static final int EVENT_EXPLODE = 5;   // player, cell index, orbs left behind
+    public static final int EVENT_CASCADE = 6;   // generations, explosions, moves made before it
+    public static final int EVENT_TURN = 7;      // next player, move count, 0
+    public static final int EVENT_GAME_OVER = 8; // winner, winner's orbs, move count
+    public static final int EVENT_RESET = 9;     // 0, 0, 0
+    public static final int EVENT_UNDO = 10;     // player to move after it, cells restored, move count
+    public static final int EVENT_REDO = 11;     // player to move after it, cells restored, move count
+
+    public static final int REJECT_GAME_OVER = 1;
+    public static final int REJECT_INVALID = 2;
+
+    /** Receives trace events. Implementations must not retain references to engine state. */
+    public interface Sink {
+        void event(int type, int a, int b, int c);
+    }
+
+    private static final class Config {
+        final Sink sink;
+        final int level;
+
+        Config(Sink sink, int level) {
+            this.sink = sink;
+            this.level = level;
+        }
+    }
+
+    // The hot path only pays for one volatile read and a compare
+    private static volatile Config config = new Config(null, LEVEL_OFF);
+
+    private EngineTrace() {
+    }
+
+    public static boolean isEnabled(int eventLevel) {
+        return config.level >= eventLevel;
+    }
+
+    /** Installs a sink and the level it records at, or turns tracing off with a null sink. */
+    public static void install(Sink newSink, int newLevel) {
+        config = new Config(newSink, newSink == null ? LEVEL_OFF : newLevel);
+    }
+
+    public static void emit(int type, int a, int b, int c) {
+        Sink current = config.sink;
+        if (current != null) {
+            current.event(type, a, b, c);
+        }
+    }
+
+    public static String eventName(int type) {
+        switch (type) {
+            case EVENT_INIT: return "INIT";
+            case EVENT_MOVE: return "MOVE";
+            case EVENT_REJECTED: return "REJECTED";
+            case EVENT_ADD_ORB: return "ADD_ORB";
+            case EVENT_EXPLODE: return "EXPLODE";
+            case EVENT_CASCADE: return "CASCADE";
+            case EVENT_TURN: return "TURN";
+            case EVENT_GAME_OVER: return "GAME_OVER";
+            case EVENT_RESET: return "RESET";
+            case EVENT_UNDO: return "UNDO";
+            case EVENT_REDO: return "REDO";
+            default: return "UNKNOWN(" + type + ")";
+        }
+    }
+}
@@ -0,0 +1,911 @@
+package com.example.chainreaction;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public class GameBoard {
+    private final int width;
+    private final int height;
+    private final BoardTopology topology;
+    // Packed board state, indexed row * width + col
+    private final byte[] owners;
+    private final byte[] orbs;
+    private final byte[] thresholds; // shared between all boards of the same shape
+    private final int[] neighbourStart;
+    private final int[] neighbours;
+    private GameCell[] cellViews; // created lazily by getCell for the UI
+    private int borderColor;
+    private int currentPlayer;
+    private boolean gameOver;
+    private OnGameStateChangeListener listener;
+    private int moveCount; // Track number of moves made
+    private int numPlayers = 3; // Default to 3 for backward compatibility
+    // Kept up to date as orbs are added, captured and exploded; index 0 unused, 1-3 for players
+    private final int[] playerOrbs;
+    private final int[] playerCells;
+    private int lastCascadeGenerations;
+    private int lastCascadeExplosions;
+    private CascadeEvents cascadeEvents; // null unless someone wants to replay cascades
+
+    // Cell sets as bitsets, 64 cells per long, kept up to date with every cell change.
+    // Layer p of a set starts at p * bitWords: cells owned by p (layer 0 for empty cells),
+    // and p's critical cells, one orb short of exploding.
+    private final int bitWords;
+    private final long[] ownerBits;
+    private final long[] criticalBits;
+
+    // Reusable worklists for the chain reaction engine, indexed row * width + col
+    private int[] wave;
+    private int[] nextWave;
+    private int[] touched;
+    private int[] touchedStamp;
+    private int stamp;
+
+    // Optional fork-join resolution for large boards; small boards and waves stay sequential
+    public static final int PARALLEL_MIN_CELLS = 64 * 64;
+    private static final int PARALLEL_MIN_WAVE = 1024;
+    private ForkJoinPool parallelPool;
+    private ParallelWaveResolver parallelResolver;
+
+    // Trace events go to EngineTrace unless turned off for this board
+    private boolean tracing;
+
+    // Zobrist hash of the cell contents, kept up to date by addOrb and explode while enabled
+    private boolean hashing;
+    private long hash;
+
+    // Undo journal: for every move, the other value of each cell it changed. Undo and redo
+    // swap those values with the board's, so the same entries serve both directions.
+    private boolean journaling;
+    private int[] journalCells;
+    private byte[] journalOwners;
+    private byte[] journalOrbs;
+    private int journalSize; // entries belonging to the moves currently applied
+    private int[] journalStamp;
+    private int journalSerial;
+    private int[] moveStarts;
+    private int[] moveEnds;
+    private byte[] movePlayers;  // swapped with currentPlayer on undo and redo
+    private boolean[] moveGameOver; // swapped with gameOver on undo and redo
+    private int journalMoves; // moves currently applied
+    private int journalTop;   // moves recorded; the ones above journalMoves can be redone
+
+    public interface OnGameStateChangeListener {
+        void onGameStateChanged();
+        void onGameOver(int winner);
+    }
+
+    /** A classic grid board of the given size. */
+    public GameBoard(int width, int height) {
+        this(BoardTopology.grid(width, height));
+    }
+
+    public GameBoard(BoardTopology topology) {
+        this(topology, true);
+    }
+
+    /**
+     * A board of the given shape whose trace events are on or off from the start, so a
+     * board used only for search or preview doesn't even announce itself.
+     */
+    public GameBoard(BoardTopology topology, boolean tracing) {
+        this.topology = topology;
+        this.tracing = tracing;
+        this.width = topology.getWidth();
+        this.height = topology.getHeight();
+        this.owners = new byte[width * height];
+        this.orbs = new byte[width * height];
+        this.thresholds = topology.thresholds;
+        this.neighbourStart = topology.neighbourStart;
+        this.neighbours = topology.neighbours;
+        this.currentPlayer = 1;
+        this.gameOver = false;
+        this.moveCount = 0;
+        this.playerOrbs = new int[4];
+        this.playerCells = new int[4];
+        this.bitWords = (width * height + 63) >>> 6;
+        this.ownerBits = new long[4 * bitWords];
+        this.criticalBits = new long[4 * bitWords];
+        rebuildBits();
+        updateBorderColors(); // Set initial border colors
+        if (traces(EngineTrace.LEVEL_MOVE)) {
+            EngineTrace.emit(EngineTrace.EVENT_INIT, width, height, currentPlayer);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** Shape of the board: neighbours and thresholds of every cell. */
+    public BoardTopology getTopology() {
+        return topology;
+    }
+
+    public void setOnGameStateChangeListener(OnGameStateChangeListener listener) {
+        this.listener = listener;
+    }
+
+    public int getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * Returns a lightweight view of the cell at (row, col). Views read straight from the
+     * packed board arrays, so they always reflect the current state.
+     */
+    public GameCell getCell(int row, int col) {
+        if (cellViews == null) {
+            cellViews = new GameCell[width * height];
+        }
+        int index = row * width + col;
+        GameCell view = cellViews[index];
+        if (view == null) {
+            view = new GameCell(this, index);
+            cellViews[index] = view;
+        }
+        return view;
+    }
+
+    public int getOwner(int row, int col) {
+        return owners[row * width + col];
+    }
+
+    public int getOrbs(int row, int col) {
+        return orbs[row * width + col];
+    }
+
+    public int getThreshold(int row, int col) {
+        return thresholds[row * width + col];
+    }
+
+    int getOwnerAt(int index) {
+        return owners[index];
+    }
+
+    int getOrbsAt(int index) {
+        return orbs[index];
+    }
+
+    int getThresholdAt(int index) {
+        return thresholds[index];
+    }
+
+    int getBorderColor() {
+        return borderColor;
+    }
+
+    /**
+     * Adds an orb for the given player, capturing the cell (and its orbs) if it belongs
+     * to an opponent. Returns true if the cell has reached its threshold.
+     */
+    private boolean addOrb(int index, int playerId) {
+        int owner = owners[index];
+        if (traces(EngineTrace.LEVEL_CELL)) {
+            EngineTrace.emit(EngineTrace.EVENT_ADD_ORB, playerId, index, owner);
+        }
+        if (journaling) {
+            journalCell(index);
+        }
+        if (hashing) {
+            hash ^= cellKey(index, owner, orbs[index]) ^ cellKey(index, playerId, orbs[index] + 1);
+        }
+        if (owner != playerId) {
+            if (owner != 0) {
+                // Captured orbs change hands
+                playerOrbs[owner] -= orbs[index];
+                playerOrbs[playerId] += orbs[index];
+                playerCells[owner]--;
+            }
+            playerCells[playerId]++;
+            owners[index] = (byte) playerId;
+        }
+        playerOrbs[playerId]++;
+        orbs[index]++;
+        updateBits(index, owner, playerId, orbs[index]);
+        return orbs[index] >= thresholds[index];
+    }
+
+    /** Removes one threshold's worth of orbs, keeping any extra orbs received meanwhile. */
+    private void explode(int index) {
+        int owner = owners[index];
+        int remaining = orbs[index] - thresholds[index];
+        if (traces(EngineTrace.LEVEL_CELL)) {
+            EngineTrace.emit(EngineTrace.EVENT_EXPLODE, owner, index, Math.max(remaining, 0));
+        }
+        if (journaling) {
+            journalCell(index);
+        }
+        if (hashing) {
+            hash ^= cellKey(index, owner, orbs[index]) ^ cellKey(index, owner, Math.max(remaining, 0));
+        }
+        if (remaining <= 0) {
+            playerOrbs[owner] -= orbs[index];
+            playerCells[owner]--;
+            orbs[index] = 0;
+            owners[index] = 0;
+            updateBits(index, owner, 0, 0);
+        } else {
+            playerOrbs[owner] -= thresholds[index];
+            orbs[index] = (byte) remaining;
+            updateBits(index, owner, owner, remaining);
+        }
+    }
+
+    // Moves the cell between the bitset layers of its old and new owner
+    private void updateBits(int index, int oldOwner, int owner, int count) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        if (oldOwner != owner) {
+            ownerBits[oldOwner * bitWords + word] &= ~bit;
+            ownerBits[owner * bitWords + word] |= bit;
+        }
+        criticalBits[oldOwner * bitWords + word] &= ~bit;
+        if (owner != 0 && count == thresholds[index] - 1) {
+            criticalBits[owner * bitWords + word] |= bit;
+        }
+    }
+
+    private void rebuildBits() {
+        Arrays.fill(ownerBits, 0);
+        Arrays.fill(criticalBits, 0);
+        for (int i = 0; i < owners.length; i++) {
+            ownerBits[owners[i] * bitWords + (i >>> 6)] |= 1L << i;
+            updateBits(i, owners[i], owners[i], orbs[i]);
+        }
+    }
+
+    public boolean makeMove(int row, int col) {
+        int index = row * width + col;
+        if (gameOver) {
+            if (traces(EngineTrace.LEVEL_MOVE)) {
+                EngineTrace.emit(EngineTrace.EVENT_REJECTED, currentPlayer, index, EngineTrace.REJECT_GAME_OVER);
+            }
+            return false;
+        }
+        
+        if (!isValidMove(row, col)) {
+            if (traces(EngineTrace.LEVEL_MOVE)) {
+                EngineTrace.emit(EngineTrace.EVENT_REJECTED, currentPlayer, index, EngineTrace.REJECT_INVALID);
+            }
+            return false;
+        }
+
+        if (traces(EngineTrace.LEVEL_MOVE)) {
+            EngineTrace.emit(EngineTrace.EVENT_MOVE, currentPlayer, index, orbs[index]);
+        }
+        
+        lastCascadeGenerations = 0;
+        lastCascadeExplosions = 0;
+        if (journaling) {
+            beginJournalEntry();
+        }
+        if (cascadeEvents != null) {
+            cascadeEvents.begin(index, currentPlayer);
+        }
+        boolean willExplode = addOrb(index, currentPlayer);
+        if (willExplode) {
+            handleExplosion(index);
+        }
+        if (journaling) {
+            moveEnds[journalMoves - 1] = journalSize;
+        }
+
+        moveCount++;
+
+        checkAndHandleGameOver();
+
+        // Only switch player if game is not over
+        if (!gameOver) {
+            switchPlayer();
+        }
+
+        if (listener != null) {
+            listener.onGameStateChanged();
+        }
+        return true;
+    }
+
+    private boolean isValidMove(int row, int col) {
+        if (row < 0 || row >= height || col < 0 || col >= width) {
+            return false;
+        }
+        int owner = owners[row * width + col];
+        return owner == 0 || owner == currentPlayer;
+    }
+
+    /** True if the given player may play the cell: it is empty or already theirs. */
+    public boolean isLegalMove(int playerId, int index) {
+        return (legalBits(playerId, index >>> 6) & (1L << index)) != 0;
+    }
+
+    /** True if the cell holds one orb less than it takes to explode. */
+    public boolean isCritical(int index) {
+        int owner = owners[index];
+        return owner != 0 && (criticalBits[owner * bitWords + (index >>> 6)] & (1L << index)) != 0;
+    }
+
+    /**
+     * Fills {@code out} with the cells the given player may play, in index order, and
+     * returns how many there are. {@code out} needs room for every cell.
+     */
+    public int getLegalMoves(int playerId, int[] out) {
+        int count = 0;
+        for (int word = 0; word < bitWords; word++) {
+            count = appendBits(legalBits(playerId, word), word, out, count);
+        }
+        return count;
+    }
+
+    /** Fills {@code out} with the given player's critical cells in index order; returns how many. */
+    public int getCriticalCells(int playerId, int[] out) {
+        int count = 0;
+        for (int word = 0; word < bitWords; word++) {
+            count = appendBits(criticalBits(playerId, word), word, out, count);
+        }
+        return count;
+    }
+
+    /**
+     * First cell at or after {@code fromIndex} that the given player may play, or -1 if
+     * there is none; start again from 0 to wrap around.
+     */
+    public int nextLegalMove(int playerId, int fromIndex) {
+        int word = fromIndex >>> 6;
+        if (word >= bitWords) {
+            return -1;
+        }
+        long bits = legalBits(playerId, word) & (-1L << fromIndex);
+        while (bits == 0) {
+            if (++word == bitWords) {
+                return -1;
+            }
+            bits = legalBits(playerId, word);
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /** Copies the critical cells of every player as one bitset, 64 cells per long. */
+    public void copyCriticalBits(long[] out) {
+        for (int word = 0; word < bitWords; word++) {
+            out[word] = criticalBits[bitWords + word] | criticalBits[2 * bitWords + word]
+                    | criticalBits[3 * bitWords + word];
+        }
+    }
+
+    /** Number of longs in a bitset over this board's cells. */
+    public int getBitWords() {
+        return bitWords;
+    }
+
+    // Word of the given player's legal moves: empty cells and their own
+    long legalBits(int playerId, int word) {
+        return ownerBits[word] | ownerBits[playerId * bitWords + word];
+    }
+
+    long criticalBits(int playerId, int word) {
+        return criticalBits[playerId * bitWords + word];
+    }
+
+    static int appendBits(long bits, int word, int[] out, int count) {
+        while (bits != 0) {
+            out[count++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+        }
+        return count;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+
+    /**
+     * Resolves the chain reaction started by the cell at (row, col) without recursion.
+     * Explosions are processed in breadth-first generations: every cell that is at or
+     * above its threshold when a generation starts explodes once, and the cells that
+     * overflow as a result form the next generation. The cascade stops early as soon as
+     * only one player has orbs left, so a fully owned board cannot loop forever. The
+     * per-player orb and cell counts are updated as part of every addOrb and explode.
+     */
+    private void handleExplosion(int start) {
+        int cellCount = width * height;
+        if (wave == null) {
+            wave = new int[cellCount];
+            nextWave = new int[cellCount];
+            touched = new int[cellCount];
+            touchedStamp = new int[cellCount];
+        }
+
+        int playerId = owners[start];
+        int waveSize = 1;
+        wave[0] = start;
+
+        while (waveSize > 0) {
+            lastCascadeGenerations++;
+            lastCascadeExplosions += waveSize;
+            stamp++;
+
+            int nextSize;
+            if (parallelPool != null && waveSize >= PARALLEL_MIN_WAVE && !journaling && !hashing
+                    && !traces(EngineTrace.LEVEL_CELL)) {
+                if (parallelResolver == null) {
+                    parallelResolver = new ParallelWaveResolver(topology, owners, orbs, ownerBits,
+                            criticalBits, touchedStamp, parallelPool);
+                }
+                nextSize = parallelResolver.resolveGeneration(wave, waveSize, playerId, stamp, nextWave,
+                        playerOrbs, playerCells, cascadeEvents);
+            } else {
+                nextSize = resolveGeneration(waveSize, playerId);
+            }
+            if (cascadeEvents != null) {
+                cascadeEvents.endWave();
+            }
+            int[] swap = wave;
+            wave = nextWave;
+            nextWave = swap;
+            waveSize = nextSize;
+
+            if (countPlayersWithOrbs() <= 1) {
+                break;
+            }
+        }
+        if (traces(EngineTrace.LEVEL_MOVE)) {
+            EngineTrace.emit(EngineTrace.EVENT_CASCADE, lastCascadeGenerations, lastCascadeExplosions, moveCount);
+        }
+    }
+
+    /**
+     * Explodes every cell in the current wave and fills nextWave with the cells that
+     * overflowed. Returns the size of the next wave.
+     */
+    private int resolveGeneration(int waveSize, int playerId) {
+        int touchedCount = 0;
+        for (int i = 0; i < waveSize; i++) {
+            int index = wave[i];
+            explode(index);
+            touchedCount = markTouched(index, touchedCount);
+
+            for (int k = neighbourStart[index], end = neighbourStart[index + 1]; k < end; k++) {
+                int neighbour = neighbours[k];
+                addOrb(neighbour, playerId);
+                if (cascadeEvents != null) {
+                    cascadeEvents.addFlight(index, neighbour, playerId);
+                }
+                touchedCount = markTouched(neighbour, touchedCount);
+            }
+        }
+
+        // Only cells touched in this generation can have reached their threshold
+        int nextSize = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int index = touched[i];
+            if (orbs[index] >= thresholds[index]) {
+                nextWave[nextSize++] = index;
+            }
+        }
+        return nextSize;
+    }
+
+    private int markTouched(int index, int touchedCount) {
+        if (touchedStamp[index] != stamp) {
+            touchedStamp[index] = stamp;
+            touched[touchedCount++] = index;
+        }
+        return touchedCount;
+    }
+
+    private int countPlayersWithOrbs() {
+        int playersWithOrbs = 0;
+        for (int i = 1; i <= numPlayers; i++) {
+            if (playerOrbs[i] > 0) {
+                playersWithOrbs++;
+            }
+        }
+        return playersWithOrbs;
+    }
+
+    /**
+     * Resolves large explosion generations on the given fork-join pool, or turns this off
+     * with null. Only boards with at least {@link #PARALLEL_MIN_CELLS} cells use it, and
+     * then only for waves big enough to be worth splitting; results match the sequential
+     * engine exactly.
+     */
+    public void setParallelPool(ForkJoinPool pool) {
+        this.parallelPool = width * height >= PARALLEL_MIN_CELLS ? pool : null;
+        this.parallelResolver = null;
+    }
+
+    /**
+     * Starts or stops recording every move's cascade as explosion waves. Recording is off
+     * by default so simulations don't pay for it.
+     */
+    public void setCascadeEventsEnabled(boolean enabled) {
+        if (!enabled) {
+            cascadeEvents = null;
+        } else if (cascadeEvents == null) {
+            cascadeEvents = new CascadeEvents();
+        }
+    }
+
+    /** Waves recorded for the last move, or null if recording is disabled. */
+    public CascadeEvents getLastMoveEvents() {
+        return cascadeEvents;
+    }
+
+    /** Copies the owner and orb count of every cell into the given arrays, row-major. */
+    public void copyState(byte[] ownersOut, byte[] orbsOut) {
+        System.arraycopy(owners, 0, ownersOut, 0, owners.length);
+        System.arraycopy(orbs, 0, orbsOut, 0, orbs.length);
+    }
+
+    /**
+     * Makes a copy of this position in another board of the same shape: cells, counts,
+     * turn and move count. Only arrays are copied, so nothing is allocated. The target's
+     * undo history is cleared and its hash brought up to date, while its listener and
+     * settings are left alone.
+     */
+    public void copyInto(GameBoard target) {
+        if (target.topology != topology) {
+            throw new IllegalArgumentException("Board shape mismatch: " + target.topology);
+        }
+        System.arraycopy(owners, 0, target.owners, 0, owners.length);
+        System.arraycopy(orbs, 0, target.orbs, 0, orbs.length);
+        System.arraycopy(playerOrbs, 0, target.playerOrbs, 0, playerOrbs.length);
+        System.arraycopy(playerCells, 0, target.playerCells, 0, playerCells.length);
+        System.arraycopy(ownerBits, 0, target.ownerBits, 0, ownerBits.length);
+        System.arraycopy(criticalBits, 0, target.criticalBits, 0, criticalBits.length);
+        target.numPlayers = numPlayers;
+        target.currentPlayer = currentPlayer;
+        target.gameOver = gameOver;
+        target.moveCount = moveCount;
+        target.borderColor = borderColor;
+        target.clearJournal();
+        if (target.hashing) {
+            target.hash = hashing ? hash : target.computeHash();
+        }
+    }
+
+    /** True if the other board holds the same position: cells, turn and move count. */
+    public boolean hasSamePosition(GameBoard other) {
+        return other.topology == topology
+                && other.currentPlayer == currentPlayer && other.moveCount == moveCount
+                && other.numPlayers == numPlayers && other.gameOver == gameOver
+                && Arrays.equals(other.owners, owners) && Arrays.equals(other.orbs, orbs);
+    }
+
+    /**
+     * Replaces the position with the given cells, row-major, and turn state, as saved by
+     * {@link #copyState(byte[], byte[])}. Scores, cell sets and the hash are recomputed and the undo
+     * history is cleared; the number of players is left alone.
+     */
+    public void setPosition(byte[] ownersIn, byte[] orbsIn, int currentPlayer, int moveCount, boolean gameOver) {
+        if (ownersIn.length != owners.length || orbsIn.length != orbs.length) {
+            throw new IllegalArgumentException("Position size mismatch: " + ownersIn.length + " cells");
+        }
+        System.arraycopy(ownersIn, 0, owners, 0, owners.length);
+        System.arraycopy(orbsIn, 0, orbs, 0, orbs.length);
+        Arrays.fill(playerOrbs, 0);
+        Arrays.fill(playerCells, 0);
+        for (int i = 0; i < owners.length; i++) {
+            if (owners[i] != 0) {
+                playerOrbs[owners[i]] += orbs[i];
+                playerCells[owners[i]]++;
+            }
+        }
+        rebuildBits();
+        this.currentPlayer = currentPlayer;
+        this.moveCount = moveCount;
+        this.gameOver = gameOver;
+        hash = hashing ? computeHash() : 0;
+        clearJournal();
+        updateBorderColors();
+        if (listener != null) {
+            listener.onGameStateChanged();
+        }
+    }
+
+    /**
+     * Turns incremental Zobrist hashing on or off. While on, {@link #getPositionHash()}
+     * costs nothing extra; every changed cell updates the hash as it changes.
+     */
+    public void setHashingEnabled(boolean enabled) {
+        hashing = enabled;
+        hash = enabled ? computeHash() : 0;
+    }
+
+    /**
+     * Hash of the whole position: cells, the player to move and, during the first round,
+     * the move count (which decides whether the game can end yet). Equal positions always
+     * hash the same; hashing must be enabled.
+     */
+    public long getPositionHash() {
+        int round = moveCount < numPlayers ? moveCount + 1 : 0;
+        return hash ^ mix64(0x5A0B00L | (currentPlayer << 8) | round);
+    }
+
+    private long computeHash() {
+        long h = 0;
+        for (int i = 0; i < owners.length; i++) {
+            h ^= cellKey(i, owners[i], orbs[i]);
+        }
+        return h;
+    }
+
+    // Zobrist keys are computed rather than stored; an empty cell contributes nothing
+    private static long cellKey(int index, int owner, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        return mix64(((long) index << 16) | (owner << 8) | count);
+    }
+
+    private static long mix64(long z) {
+        // SplitMix64 finalizer
+        z = (z + 0x9E3779B97F4A7C15L) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Turns this board's trace events on or off; on by default. Boards the engine only
+     * thinks with, such as search and preview copies, turn it off so the trace records
+     * the game being played.
+     */
+    public void setTracingEnabled(boolean enabled) {
+        tracing = enabled;
+    }
+
+    private boolean traces(int level) {
+        return tracing && EngineTrace.isEnabled(level);
+    }
+
+    /**
+     * Turns the undo journal on or off. While on, every move remembers the cells it
+     * changed, so {@link #undoMove()} and {@link #redoMove()} cost time proportional to
+     * the cells changed rather than the board size. Changing the setting clears history.
+     */
+    public void setJournalingEnabled(boolean enabled) {
+        journaling = enabled;
+        clearJournal();
+        if (enabled && journalCells == null) {
+            int capacity = owners.length * 4;
+            journalCells = new int[capacity];
+            journalOwners = new byte[capacity];
+            journalOrbs = new byte[capacity];
+            journalStamp = new int[owners.length];
+            moveStarts = new int[64];
+            moveEnds = new int[64];
+            movePlayers = new byte[64];
+            moveGameOver = new boolean[64];
+        }
+    }
+
+    public boolean canUndo() {
+        return journalMoves > 0;
+    }
+
+    public boolean canRedo() {
+        return journalMoves < journalTop;
+    }
+
+    /** Takes back the last move. Returns false if there is nothing to undo. */
+    public boolean undoMove() {
+        if (journalMoves == 0) {
+            return false;
+        }
+        journalMoves--;
+        swapMove(journalMoves);
+        moveCount--;
+        journalSize = moveStarts[journalMoves];
+        if (traces(EngineTrace.LEVEL_MOVE)) {
+            EngineTrace.emit(EngineTrace.EVENT_UNDO, currentPlayer,
+                    moveEnds[journalMoves] - moveStarts[journalMoves], moveCount);
+        }
+        if (listener != null) {
+            listener.onGameStateChanged();
+        }
+        return true;
+    }
+
+    /** Plays again the last move taken back. Returns false if there is nothing to redo. */
+    public boolean redoMove() {
+        if (journalMoves == journalTop) {
+            return false;
+        }
+        swapMove(journalMoves);
+        moveCount++;
+        journalSize = moveEnds[journalMoves];
+        journalMoves++;
+        if (traces(EngineTrace.LEVEL_MOVE)) {
+            EngineTrace.emit(EngineTrace.EVENT_REDO, currentPlayer,
+                    moveEnds[journalMoves - 1] - moveStarts[journalMoves - 1], moveCount);
+        }
+        if (listener != null) {
+            listener.onGameStateChanged();
+        }
+        return true;
+    }
+
+    // Exchanges the board's cells and turn state with the ones recorded for the move
+    private void swapMove(int move) {
+        for (int i = moveStarts[move]; i < moveEnds[move]; i++) {
+            int index = journalCells[i];
+            byte owner = owners[index];
+            byte count = orbs[index];
+            setCell(index, journalOwners[i], journalOrbs[i]);
+            journalOwners[i] = owner;
+            journalOrbs[i] = count;
+        }
+        int player = currentPlayer;
+        currentPlayer = movePlayers[move];
+        movePlayers[move] = (byte) player;
+        boolean over = gameOver;
+        gameOver = moveGameOver[move];
+        moveGameOver[move] = over;
+        updateBorderColors();
+    }
+
+    private void clearJournal() {
+        journalSize = 0;
+        journalMoves = 0;
+        journalTop = 0;
+    }
+
+    private void beginJournalEntry() {
+        if (journalMoves == moveStarts.length) {
+            int capacity = journalMoves * 2;
+            moveStarts = Arrays.copyOf(moveStarts, capacity);
+            moveEnds = Arrays.copyOf(moveEnds, capacity);
+            movePlayers = Arrays.copyOf(movePlayers, capacity);
+            moveGameOver = Arrays.copyOf(moveGameOver, capacity);
+        }
+        // A new move replaces anything that could have been redone
+        moveStarts[journalMoves] = journalSize;
+        moveEnds[journalMoves] = journalSize;
+        movePlayers[journalMoves] = (byte) currentPlayer;
+        moveGameOver[journalMoves] = gameOver;
+        journalMoves++;
+        journalTop = journalMoves;
+        journalSerial++;
+    }
+
+    // Records a cell's contents the first time a move changes it
+    private void journalCell(int index) {
+        if (journalStamp[index] == journalSerial) {
+            return;
+        }
+        journalStamp[index] = journalSerial;
+        if (journalSize == journalCells.length) {
+            int capacity = journalSize * 2;
+            journalCells = Arrays.copyOf(journalCells, capacity);
+            journalOwners = Arrays.copyOf(journalOwners, capacity);
+            journalOrbs = Arrays.copyOf(journalOrbs, capacity);
+        }
+        journalCells[journalSize] = index;
+        journalOwners[journalSize] = owners[index];
+        journalOrbs[journalSize] = orbs[index];
+        journalSize++;
+    }
+
+    // Overwrites a cell, keeping the per-player counts and the hash in step
+    private void setCell(int index, int owner, int count) {
+        int oldOwner = owners[index];
+        int oldCount = orbs[index];
+        if (oldOwner != 0) {
+            playerOrbs[oldOwner] -= oldCount;
+            playerCells[oldOwner]--;
+        }
+        if (owner != 0) {
+            playerOrbs[owner] += count;
+            playerCells[owner]++;
+        }
+        if (hashing) {
+            hash ^= cellKey(index, oldOwner, oldCount) ^ cellKey(index, owner, count);
+        }
+        owners[index] = (byte) owner;
+        orbs[index] = (byte) count;
+        updateBits(index, oldOwner, owner, count);
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /** Number of explosion generations resolved by the last move. */
+    public int getLastCascadeGenerations() {
+        return lastCascadeGenerations;
+    }
+
+    /** Total number of cell explosions resolved by the last move. */
+    public int getLastCascadeExplosions() {
+        return lastCascadeExplosions;
+    }
+
+    private void updateBorderColors() {
+        borderColor = currentPlayer == 1 ? GameCell.BORDER_PLAYER1 : (currentPlayer == 2 ? GameCell.BORDER_PLAYER2 : GameCell.BORDER_PLAYER3);
+    }
+
+    private void switchPlayer() {
+        currentPlayer++;
+        if (currentPlayer > numPlayers) currentPlayer = 1;
+        updateBorderColors();
+        if (traces(EngineTrace.LEVEL_MOVE)) {
+            EngineTrace.emit(EngineTrace.EVENT_TURN, currentPlayer, moveCount, 0);
+        }
+    }
+
+    private void checkAndHandleGameOver() {
+        if (moveCount < numPlayers) {
+            return;  // Game can't be over before all players have made at least one move
+        }
+
+        // Count players with orbs
+        int playersWithOrbs = 0;
+        int lastPlayerWithOrbs = 0;
+        for (int i = 1; i <= numPlayers; i++) {
+            if (playerOrbs[i] > 0) {
+                playersWithOrbs++;
+                lastPlayerWithOrbs = i;
+            }
+        }
+
+        // Check if game is over
+        if (playersWithOrbs == 1) {
+            gameOver = true;
+            if (traces(EngineTrace.LEVEL_MOVE)) {
+                EngineTrace.emit(EngineTrace.EVENT_GAME_OVER, lastPlayerWithOrbs, playerOrbs[lastPlayerWithOrbs], moveCount);
+            }
+            if (listener != null) {
+                listener.onGameOver(lastPlayerWithOrbs);
+            }
+        }
+    }
+
+    public void reset() {
+        Arrays.fill(owners, (byte) 0);
+        Arrays.fill(orbs, (byte) 0);
+        currentPlayer = 1;
+        gameOver = false;
+        moveCount = 0;
+        Arrays.fill(playerOrbs, 0);
+        Arrays.fill(playerCells, 0);
+        rebuildBits();
+        hash = 0;
+        clearJournal();
+        updateBorderColors();
+        if (traces(EngineTrace.LEVEL_MOVE)) {
+            EngineTrace.emit(EngineTrace.EVENT_RESET, 0, 0, 0);
+        }
+        if (listener != null) {
+            listener.onGameStateChanged();
+        }
+    }
+
+    public void setNumPlayers(int numPlayers) {
+        this.numPlayers = numPlayers;
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    public int getPlayerScore(int playerId) {
+        if (playerId >= 1 && playerId <= 3) {
+            return playerOrbs[playerId];
+        }
+        return 0;
+    }
+
+    /** Number of cells currently owned by the given player. */
+    public int getPlayerCellCount(int playerId) {
+        if (playerId >= 1 && playerId <= 3) {
+            return playerCells[playerId];
+        }
+        return 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.example.chainreaction;
+
+/**
+ * Read-only view of a single square on a {@link GameBoard}. The board keeps its state in
+ * packed arrays; a view only remembers where it points, so it never goes stale.
+ */
+public class GameCell {
+    private final GameBoard board;
+    private final int index;
+
+    public static final int BORDER_NONE = 0;
+    public static final int BORDER_PLAYER1 = 1; // Red
+    public static final int BORDER_PLAYER2 = 2; // Green
+    public static final int BORDER_PLAYER3 = 3; // Yellow
+
+    GameCell(GameBoard board, int index) {
+        this.board = board;
+        this.index = index;
+    }
+
+    public int getRow() {
+        return index / board.getWidth();
+    }
+
+    public int getCol() {
+        return index % board.getWidth();
+    }
+
+    public int getOrbs() {
+        return board.getOrbsAt(index);
+    }
+
+    public int getPlayerId() {
+        return board.getOwnerAt(index); // 0 for empty, 1-3 for players
+    }
+
+    public int getThreshold() {
+        return board.getThresholdAt(index);
+    }
+
+    public int getBorderColor() {
+        return board.getBorderColor();
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.chainreaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Monte Carlo tree search opponent that runs playouts on several threads over one shared
+ * tree. Node statistics live in atomic arrays, so threads never lock: a thread adds a
+ * visit to every node on its way down (a virtual loss that steers the others elsewhere)
+ * and adds the reward on the way back up. Each thread plays out on its own board, copied
+ * from the root position, so a playout allocates nothing.
+ *
+ * <p>Rewards are credited to the player who made the move into a node, which handles any
+ * number of players without assuming they gang up on anyone.
+ */
+public class MctsPlayer implements AiPlayer {
+    public static final long DEFAULT_TIME_BUDGET_MS = 500;
+    public static final int DEFAULT_MAX_NODES = 1 << 17;
+
+    private static final long REWARD_SCALE = 1024;
+    private static final double EXPLORATION = 1.0;
+    private static final int UNEXPANDED = -1;
+    private static final int EXPANDING = -2;
+    private static final int RANDOM_PROBES = 8;
+
+    private final int threads;
+    private final long timeBudgetNanos;
+    private final int maxPlayouts;
+    private final int maxNodes;
+
+    // Tree arena; node 0 is the root
+    private final int[] moves;
+    private final byte[] movers;
+    private final int[] childCounts;
+    private final AtomicIntegerArray firstChildren;
+    private final AtomicIntegerArray visits;
+    private final AtomicLongArray rewards;
+    private final AtomicInteger nodeCount = new AtomicInteger();
+    private final AtomicInteger playouts = new AtomicInteger();
+
+    private ExecutorService executor;
+    private Worker[] workers;
+    private GameBoard rootBoard;
+    private SearchControl control;
+    private int lastPlayouts;
+    private int expectedReply = -1;
+
+    public MctsPlayer() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_TIME_BUDGET_MS, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param threads number of search threads
+     * @param timeBudgetMs time allowed per move
+     * @param maxPlayouts stop early after this many playouts
+     */
+    public MctsPlayer(int threads, long timeBudgetMs, int maxPlayouts) {
+        this(threads, timeBudgetMs, maxPlayouts, DEFAULT_MAX_NODES);
+    }
+
+    public MctsPlayer(int threads, long timeBudgetMs, int maxPlayouts, int maxNodes) {
+        this.threads = Math.max(1, threads);
+        this.timeBudgetNanos = timeBudgetMs * 1000000L;
+        this.maxPlayouts = maxPlayouts;
+        this.maxNodes = maxNodes;
+        this.moves = new int[maxNodes];
+        this.movers = new byte[maxNodes];
+        this.childCounts = new int[maxNodes];
+        this.firstChildren = new AtomicIntegerArray(maxNodes);
+        this.visits = new AtomicIntegerArray(maxNodes);
+        this.rewards = new AtomicLongArray(maxNodes);
+    }
+
+    @Override
+    public int chooseMove(GameBoard position) {
+        return chooseMove(position, SearchControl.withBudget(timeBudgetNanos / 1000000L));
+    }
+
+    @Override
+    public int chooseMove(GameBoard position, SearchControl control) {
+        expectedReply = -1;
+        if (position.isGameOver()) {
+            return -1;
+        }
+        prepare(position);
+        this.control = control;
+        playouts.set(0);
+        nodeCount.set(1);
+        resetNode(0, -1, 0);
+
+        List<Callable<Void>> tasks = new ArrayList<>(threads);
+        for (Worker worker : workers) {
+            tasks.add(worker);
+        }
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Search thread failed", e.getCause());
+        }
+        lastPlayouts = playouts.get();
+        int best = mostVisitedChild(0);
+        if (best < 0) {
+            return -1;
+        }
+        int reply = mostVisitedChild(best);
+        expectedReply = reply >= 0 ? moves[reply] : -1;
+        return moves[best];
+    }
+
+    @Override
+    public int getExpectedReply() {
+        return expectedReply;
+    }
+
+    /** Number of playouts run by the last search. */
+    public int getPlayoutCount() {
+        return lastPlayouts;
+    }
+
+    /** Stops the search threads. The player can't be used afterwards. */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private void prepare(GameBoard position) {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "ChainReactionMcts");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (rootBoard == null || rootBoard.getTopology() != position.getTopology()) {
+            rootBoard = new GameBoard(position.getTopology(), false);
+            workers = new Worker[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Worker(position.getTopology(), 0x9E3779B97F4A7C15L * (i + 1), i == 0);
+            }
+        }
+        position.copyInto(rootBoard);
+    }
+
+    private void resetNode(int node, int move, int mover) {
+        moves[node] = move;
+        movers[node] = (byte) mover;
+        childCounts[node] = 0;
+        visits.set(node, 0);
+        rewards.set(node, 0);
+        firstChildren.set(node, UNEXPANDED);
+    }
+
+    /** Returns the node's most visited child, or -1 if it has none. */
+    private int mostVisitedChild(int node) {
+        int first = firstChildren.get(node);
+        if (first < 0 || childCounts[node] == 0) {
+            return -1;
+        }
+        int best = first;
+        for (int child = first + 1; child < first + childCounts[node]; child++) {
+            if (visits.get(child) > visits.get(best)) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /** Picks the child with the best UCT score; unvisited children come first. */
+    private int selectChild(int node) {
+        int first = firstChildren.get(node);
+        int end = first + childCounts[node];
+        double logParent = Math.log(Math.max(1, visits.get(node)));
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < end; child++) {
+            int n = visits.get(child);
+            if (n == 0) {
+                return child;
+            }
+            double value = rewards.get(child) / (double) (n * REWARD_SCALE)
+                    + EXPLORATION * Math.sqrt(logParent / n);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    private final class Worker implements Callable<Void> {
+        private final GameBoard board;
+        private final int[] path;
+        private final int[] legal;
+        private final boolean reporter;
+        private long seed;
+
+        Worker(BoardTopology topology, long seed, boolean reporter) {
+            this.board = new GameBoard(topology, false);
+            this.path = new int[topology.getCellCount() * 8];
+            this.legal = new int[topology.getCellCount()];
+            this.seed = seed;
+            this.reporter = reporter;
+        }
+
+        @Override
+        public Void call() {
+            int count = 0;
+            while (playouts.getAndIncrement() < maxPlayouts && !control.shouldStop()) {
+                playout();
+                if (reporter && (++count & 255) == 0) {
+                    int best = mostVisitedChild(0);
+                    if (best >= 0) {
+                        control.reportBestMove(moves[best]);
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void playout() {
+            rootBoard.copyInto(board);
+            int width = board.getWidth();
+            int depth = 0;
+            int node = 0;
+            path[depth++] = node;
+            visits.incrementAndGet(node);
+
+            // Selection, adding a virtual loss to every node passed; the last path slot is
+            // kept for expansion
+            while (firstChildren.get(node) >= 0 && childCounts[node] > 0 && depth < path.length - 1) {
+                node = selectChild(node);
+                visits.incrementAndGet(node);
+                path[depth++] = node;
+                int move = moves[node];
+                board.makeMove(move / width, move % width);
+            }
+
+            // Expansion: only the thread that claims the node creates its children
+            if (!board.isGameOver() && firstChildren.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+                int count = generateLegal();
+                int first = nodeCount.getAndAdd(count);
+                if (count > 0 && first + count <= maxNodes) {
+                    int mover = board.getCurrentPlayer();
+                    for (int i = 0; i < count; i++) {
+                        resetNode(first + i, legal[i], mover);
+                    }
+                    childCounts[node] = count;
+                    firstChildren.set(node, first); // publishes the children
+                    int child = first + nextInt(count);
+                    visits.incrementAndGet(child);
+                    path[depth++] = child;
+                    board.makeMove(legal[child - first] / width, legal[child - first] % width);
+                } else {
+                    childCounts[node] = 0;
+                    firstChildren.set(node, first); // tree is full (or no moves); play out from here
+                }
+            }
+
+            rollout();
+
+            // Backpropagation: each node scores the result for the player who moved into it
+            int total = 0;
+            for (int p = 1; p <= board.getNumPlayers(); p++) {
+                total += board.getPlayerScore(p);
+            }
+            for (int i = 0; i < depth; i++) {
+                int mover = movers[path[i]];
+                if (mover != 0 && total > 0) {
+                    rewards.addAndGet(path[i], board.getPlayerScore(mover) * REWARD_SCALE / total);
+                }
+            }
+        }
+
+        /**
+         * Plays random moves until the game ends or the move limit runs out, preferring
+         * cells that are about to explode when a random probe finds one.
+         */
+        private void rollout() {
+            int width = board.getWidth();
+            int cellCount = width * board.getHeight();
+            int limit = cellCount * 4;
+            for (int n = 0; n < limit && !board.isGameOver(); n++) {
+                int move = randomMove(cellCount);
+                board.makeMove(move / width, move % width);
+            }
+        }
+
+        private int randomMove(int cellCount) {
+            int player = board.getCurrentPlayer();
+            int fallback = -1;
+            for (int probe = 0; probe < RANDOM_PROBES; probe++) {
+                int index = nextInt(cellCount);
+                int owner = board.getOwnerAt(index);
+                if (owner == player && board.getOrbsAt(index) == board.getThresholdAt(index) - 1) {
+                    return index;
+                }
+                if (fallback < 0 && (owner == 0 || owner == player)) {
+                    fallback = index;
+                }
+            }
+            if (fallback >= 0) {
+                return fallback;
+            }
+            int start = nextInt(cellCount);
+            int index = board.nextLegalMove(player, start);
+            if (index < 0) {
+                index = board.nextLegalMove(player, 0);
+            }
+            return index >= 0 ? index : start; // no legal cell: the move is rejected and the rollout runs out
+        }
+
+        private int generateLegal() {
+            return board.getLegalMoves(board.getCurrentPlayer(), legal);
+        }
+
+        private int nextInt(int bound) {
+            // xorshift64*
+            seed ^= seed >>> 12;
+            seed ^= seed << 25;
+            seed ^= seed >>> 27;
+            long r = (seed * 0x2545F4914F6CDD1DL) >>> 33;
+            return (int) (r % bound);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.chainreaction;
+
+/**
+ * Works out, on its own thread, what a move would do before it is played, so the UI can
+ * show a finger's target cell together with every cell the cascade would take over.
+ *
+ * <p>Each {@link #request} copies the position into a buffer and bumps a generation
+ * number; the worker always picks up the newest request, so the ones a dragging finger
+ * leaves behind are skipped, and a result that went stale while the cascade ran is
+ * dropped. The move is played on a scratch board the worker reuses, never on the live
+ * one, and nothing is allocated per preview. {@link #shutdown()} stops the worker; the
+ * next request starts a fresh one.
+ */
+public class MovePreview {
+    private final Listener listener;
+    private final BoardTopology topology;
+
+    // Guarded by this: the latest request and the latest finished preview
+    private final byte[] requestOwners;
+    private final byte[] requestOrbs;
+    private int requestPlayer;
+    private int requestPlayers;
+    private int requestMoveCount;
+    private int requestMove;
+    private int generation;
+    private final byte[] resultOwners;
+    private final byte[] resultOrbs;
+    private int resultGeneration;
+    private Thread worker; // null once shut down; a worker that isn't this one exits
+
+    public interface Listener {
+        /** Called on the preview thread once the given request's preview is ready. */
+        void onPreviewReady(int generation);
+    }
+
+    public MovePreview(BoardTopology topology, Listener listener) {
+        this.listener = listener;
+        this.topology = topology;
+        int cells = topology.getCellCount();
+        requestOwners = new byte[cells];
+        requestOrbs = new byte[cells];
+        resultOwners = new byte[cells];
+        resultOrbs = new byte[cells];
+    }
+
+    /**
+     * Asks for a preview of the player to move playing at the given cell, row * width + col,
+     * on the snapshot's position, and returns the request's generation. Any earlier request
+     * still waiting or running is cancelled.
+     */
+    public synchronized int request(BoardSnapshot position, int move) {
+        position.copyState(requestOwners, requestOrbs);
+        requestPlayer = position.getCurrentPlayer();
+        requestPlayers = position.getNumPlayers();
+        requestMoveCount = position.getMoveCount();
+        requestMove = move;
+        generation++;
+        if (worker == null) {
+            worker = new Thread(this::work, "ChainReactionPreview");
+            worker.setDaemon(true);
+            worker.start();
+        }
+        notifyAll();
+        return generation;
+    }
+
+    /** Cancels any waiting or running preview; its listener call won't come. */
+    public synchronized void cancel() {
+        generation++;
+        requestMove = -1;
+    }
+
+    /**
+     * Copies the owners and orb counts after the given request's move, row-major, and
+     * returns true; returns false if that preview is not the latest one, isn't ready yet,
+     * or the move was not legal.
+     */
+    public synchronized boolean copyResult(int generation, byte[] ownersOut, byte[] orbsOut) {
+        if (generation != this.generation || resultGeneration != generation) {
+            return false;
+        }
+        System.arraycopy(resultOwners, 0, ownersOut, 0, resultOwners.length);
+        System.arraycopy(resultOrbs, 0, orbsOut, 0, resultOrbs.length);
+        return true;
+    }
+
+    /** Stops the preview thread and drops any pending preview; a later request restarts it. */
+    public synchronized void shutdown() {
+        worker = null;
+        generation++;
+        notifyAll();
+    }
+
+    private void work() {
+        // Each worker has its own scratch board: one being shut down may still be mid-cascade
+        Thread self = Thread.currentThread();
+        GameBoard scratch = new GameBoard(topology, false);
+        int done = 0;
+        while (true) {
+            int current;
+            int move;
+            synchronized (this) {
+                while (worker == self && (generation == done || requestMove < 0)) {
+                    done = generation;
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (worker != self) {
+                    return;
+                }
+                current = generation;
+                move = requestMove;
+                scratch.setNumPlayers(requestPlayers);
+                scratch.setPosition(requestOwners, requestOrbs, requestPlayer, requestMoveCount, false);
+            }
+            done = current;
+
+            int width = scratch.getWidth();
+            if (!scratch.makeMove(move / width, move % width)) {
+                continue;
+            }
+            synchronized (this) {
+                if (current != generation) {
+                    continue; // the finger moved on while the cascade ran
+                }
+                scratch.copyState(resultOwners, resultOrbs);
+                resultGeneration = current;
+            }
+            listener.onPreviewReady(current);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.chainreaction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Precomputed best moves for early positions, read from a memory-mapped table made by
+ * the tools module's OpeningBookBuilder. The file is a header (magic number, then
+ * topology kind, width, height, number of players and entry count as ints) followed by
+ * entries of position hash ({@link GameBoard#getPositionHash()}) and move, sorted by
+ * hash. Looking up a position is a binary search over the mapping, so nothing is loaded
+ * up front and nothing is allocated per lookup.
+ */
+public class OpeningBook {
+    public static final int MAGIC = 0x43524231; // "CRB1"
+    public static final int HEADER_BYTES = 24;
+    public static final int ENTRY_BYTES = 12;
+
+    private final ByteBuffer data;
+    private final int kind;
+    private final int width;
+    private final int height;
+    private final int numPlayers;
+    private final int entryCount;
+
+    /** Maps the given book file. */
+    public static OpeningBook open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return map(channel, 0, channel.size());
+        }
+    }
+
+    /**
+     * Maps a book stored at the given offset of a file, such as an uncompressed asset
+     * inside an APK. The mapping stays valid after the channel is closed.
+     */
+    public static OpeningBook map(FileChannel channel, long offset, long length) throws IOException {
+        return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    /** Reads a book held in memory, from the buffer's first byte to its limit. */
+    public OpeningBook(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IOException("not an opening book");
+        }
+        kind = data.getInt(4);
+        width = data.getInt(8);
+        height = data.getInt(12);
+        numPlayers = data.getInt(16);
+        entryCount = data.getInt(20);
+        if (entryCount < 0 || HEADER_BYTES + (long) entryCount * ENTRY_BYTES > data.limit()) {
+            throw new IOException("truncated opening book");
+        }
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /** True if the book was made for boards of this shape and number of players. */
+    public boolean covers(GameBoard board) {
+        BoardTopology topology = board.getTopology();
+        return topology.getKind() == kind && topology.getWidth() == width
+                && topology.getHeight() == height && board.getNumPlayers() == numPlayers;
+    }
+
+    /**
+     * Book move, row * width + col, for the board's position, or -1 if the position is not
+     * in the book or the book is for other boards. The board must have hashing enabled.
+     */
+    public int lookUp(GameBoard board) {
+        if (!covers(board)) {
+            return -1;
+        }
+        int move = lookUp(board.getPositionHash());
+        return move >= 0 && board.isLegalMove(board.getCurrentPlayer(), move) ? move : -1;
+    }
+
+    /** Book move stored for the given position hash, or -1. */
+    public int lookUp(long positionHash) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = HEADER_BYTES + mid * ENTRY_BYTES;
+            long hash = data.getLong(offset);
+            if (hash < positionHash) {
+                low = mid + 1;
+            } else if (hash > positionHash) {
+                high = mid - 1;
+            } else {
+                return data.getInt(offset + 8);
+            }
+        }
+        return -1;
+    }
+}
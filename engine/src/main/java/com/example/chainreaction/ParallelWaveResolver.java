@@ -0,0 +1,279 @@
+package com.example.chainreaction;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Resolves one explosion generation of a large {@link GameBoard} on a fork-join pool.
+ *
+ * <p>The board is cut into tiles: contiguous ranges of cell indices whose boundaries are
+ * multiples of 64. Each tile explodes its own share of the wave and applies orbs that land
+ * inside it directly. Orbs that land in another tile are added to a shared atomic inbox
+ * instead, and the owning tile applies them in a second pass. Each cell is only ever
+ * written by its own tile, and orbs simply add up, so the result is identical to the
+ * sequential engine whatever the scheduling. Tile boundaries fall on word boundaries of
+ * the board's cell bitsets, so each tile refreshes the bits of its own cells too.
+ */
+class ParallelWaveResolver {
+    private static final int MIN_TILE_CELLS = 4096;
+
+    private final byte[] owners;
+    private final byte[] orbs;
+    private final byte[] thresholds;
+    private final int[] neighbourStart;
+    private final int[] neighbours;
+    private final long[] ownerBits;
+    private final long[] criticalBits;
+    private final int bitWords;
+    private final int[] touchedStamp;
+    private final ForkJoinPool pool;
+    private final int tileCells;
+    private final Tile[] tiles;
+    private final AtomicIntegerArray inbox;
+    private int[] sortedWave;
+
+    ParallelWaveResolver(BoardTopology topology, byte[] owners, byte[] orbs, long[] ownerBits,
+                         long[] criticalBits, int[] touchedStamp, ForkJoinPool pool) {
+        this.owners = owners;
+        this.orbs = orbs;
+        this.thresholds = topology.thresholds;
+        this.neighbourStart = topology.neighbourStart;
+        this.neighbours = topology.neighbours;
+        this.ownerBits = ownerBits;
+        this.criticalBits = criticalBits;
+        this.bitWords = ownerBits.length / 4;
+        this.touchedStamp = touchedStamp;
+        this.pool = pool;
+        int cellCount = topology.getCellCount();
+        // A few tiles per worker, each a multiple of 64 cells
+        int target = Math.max(MIN_TILE_CELLS, cellCount / (pool.getParallelism() * 4));
+        this.tileCells = (target + 63) & ~63;
+        int tileCount = (cellCount + tileCells - 1) / tileCells;
+        this.tiles = new Tile[tileCount];
+        for (int t = 0; t < tileCount; t++) {
+            tiles[t] = new Tile(t * tileCells, Math.min(cellCount, (t + 1) * tileCells));
+        }
+        this.inbox = new AtomicIntegerArray(cellCount);
+        this.sortedWave = new int[cellCount];
+    }
+
+    /**
+     * Explodes every cell of {@code wave[0..waveSize)} for {@code playerId}, updates the
+     * per-player counts and fills {@code nextWave} with the cells that overflowed. Returns
+     * the size of the next wave.
+     */
+    int resolveGeneration(int[] wave, int waveSize, int playerId, int stamp, int[] nextWave,
+                          int[] playerOrbs, int[] playerCells, CascadeEvents events) {
+        // Bucket the wave by tile so each task walks only its own sources
+        for (Tile tile : tiles) {
+            tile.reset();
+        }
+        for (int i = 0; i < waveSize; i++) {
+            tiles[wave[i] / tileCells].waveEnd++;
+        }
+        int offset = 0;
+        for (Tile tile : tiles) {
+            int count = tile.waveEnd;
+            tile.waveStart = offset;
+            tile.waveEnd = offset;
+            offset += count;
+        }
+        for (int i = 0; i < waveSize; i++) {
+            Tile tile = tiles[wave[i] / tileCells];
+            sortedWave[tile.waveEnd++] = wave[i];
+        }
+
+        boolean recordFlights = events != null;
+        pool.invoke(new TileTask(0, tiles.length, true, playerId, stamp, recordFlights));
+        pool.invoke(new TileTask(0, tiles.length, false, playerId, stamp, recordFlights));
+
+        int nextSize = 0;
+        for (Tile tile : tiles) {
+            System.arraycopy(tile.next, 0, nextWave, nextSize, tile.nextCount);
+            nextSize += tile.nextCount;
+            for (int p = 1; p < 4; p++) {
+                playerOrbs[p] += tile.deltaOrbs[p];
+                playerCells[p] += tile.deltaCells[p];
+            }
+            if (recordFlights) {
+                for (int f = 0; f < tile.flightCount; f++) {
+                    events.addFlight(tile.flights[f * 2], tile.flights[f * 2 + 1], playerId);
+                }
+            }
+        }
+        return nextSize;
+    }
+
+    private final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final boolean explodePhase;
+        private final int playerId;
+        private final int stamp;
+        private final boolean recordFlights;
+
+        TileTask(int from, int to, boolean explodePhase, int playerId, int stamp, boolean recordFlights) {
+            this.from = from;
+            this.to = to;
+            this.explodePhase = explodePhase;
+            this.playerId = playerId;
+            this.stamp = stamp;
+            this.recordFlights = recordFlights;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(from, mid, explodePhase, playerId, stamp, recordFlights),
+                        new TileTask(mid, to, explodePhase, playerId, stamp, recordFlights));
+            } else if (explodePhase) {
+                explodeTile(tiles[from], playerId, stamp, recordFlights);
+            } else {
+                collectTile(tiles[from], playerId, stamp);
+            }
+        }
+    }
+
+    private void explodeTile(Tile tile, int playerId, int stamp, boolean recordFlights) {
+        for (int i = tile.waveStart; i < tile.waveEnd; i++) {
+            int index = sortedWave[i];
+            int remaining = orbs[index] - thresholds[index];
+            if (remaining <= 0) {
+                tile.deltaOrbs[playerId] -= orbs[index];
+                tile.deltaCells[playerId]--;
+                orbs[index] = 0;
+                owners[index] = 0;
+            } else {
+                tile.deltaOrbs[playerId] -= thresholds[index];
+                orbs[index] = (byte) remaining;
+            }
+            tile.touch(index, stamp, touchedStamp);
+
+            for (int k = neighbourStart[index], end = neighbourStart[index + 1]; k < end; k++) {
+                deliver(tile, index, neighbours[k], playerId, stamp, recordFlights);
+            }
+        }
+    }
+
+    private void deliver(Tile tile, int from, int to, int playerId, int stamp, boolean recordFlights) {
+        if (recordFlights) {
+            tile.addFlight(from, to);
+        }
+        if (to >= tile.start && to < tile.end) {
+            addOrbs(tile, to, playerId, 1);
+            tile.touch(to, stamp, touchedStamp);
+        } else if (inbox.getAndIncrement(to) == 0) {
+            // First delivery to this cell in this generation: tell its tile to collect it
+            Tile owner = tiles[to / tileCells];
+            owner.border[owner.borderCount.getAndIncrement()] = to;
+        }
+    }
+
+    private void collectTile(Tile tile, int playerId, int stamp) {
+        int borderCount = tile.borderCount.get();
+        for (int i = 0; i < borderCount; i++) {
+            int index = tile.border[i];
+            addOrbs(tile, index, playerId, inbox.getAndSet(index, 0));
+            tile.touch(index, stamp, touchedStamp);
+        }
+        for (int i = 0; i < tile.touchedCount; i++) {
+            int index = tile.touched[i];
+            if (orbs[index] >= thresholds[index]) {
+                tile.next[tile.nextCount++] = index;
+            }
+            refreshBits(index);
+        }
+    }
+
+    // Same sets as GameBoard.updateBits, without knowing which layer the cell was in
+    private void refreshBits(int index) {
+        int word = index >>> 6;
+        long bit = 1L << index;
+        for (int layer = word; layer < ownerBits.length; layer += bitWords) {
+            ownerBits[layer] &= ~bit;
+            criticalBits[layer] &= ~bit;
+        }
+        int owner = owners[index];
+        ownerBits[owner * bitWords + word] |= bit;
+        if (owner != 0 && orbs[index] == thresholds[index] - 1) {
+            criticalBits[owner * bitWords + word] |= bit;
+        }
+    }
+
+    /** Same accounting as GameBoard.addOrb, with counts kept per tile. */
+    private void addOrbs(Tile tile, int index, int playerId, int count) {
+        int owner = owners[index];
+        if (owner != playerId) {
+            if (owner != 0) {
+                tile.deltaOrbs[owner] -= orbs[index];
+                tile.deltaOrbs[playerId] += orbs[index];
+                tile.deltaCells[owner]--;
+            }
+            tile.deltaCells[playerId]++;
+            owners[index] = (byte) playerId;
+        }
+        tile.deltaOrbs[playerId] += count;
+        orbs[index] += count;
+    }
+
+    private static final class Tile {
+        final int start;
+        final int end;
+        final int[] touched;
+        final int[] next;
+        final int[] border;
+        final AtomicInteger borderCount = new AtomicInteger();
+        final int[] deltaOrbs = new int[4];
+        final int[] deltaCells = new int[4];
+        int[] flights = new int[2 * 64];
+        int touchedCount;
+        int nextCount;
+        int flightCount;
+        int waveStart;
+        int waveEnd;
+
+        Tile(int start, int end) {
+            this.start = start;
+            this.end = end;
+            this.touched = new int[end - start];
+            this.next = new int[end - start];
+            this.border = new int[end - start];
+        }
+
+        void reset() {
+            touchedCount = 0;
+            nextCount = 0;
+            flightCount = 0;
+            waveStart = 0;
+            waveEnd = 0;
+            borderCount.set(0);
+            for (int p = 0; p < 4; p++) {
+                deltaOrbs[p] = 0;
+                deltaCells[p] = 0;
+            }
+        }
+
+        void touch(int index, int stamp, int[] touchedStamp) {
+            if (touchedStamp[index] != stamp) {
+                touchedStamp[index] = stamp;
+                touched[touchedCount++] = index;
+            }
+        }
+
+        void addFlight(int from, int to) {
+            if (flightCount * 2 + 2 > flights.length) {
+                int[] grown = new int[flights.length * 2];
+                System.arraycopy(flights, 0, grown, 0, flightCount * 2);
+                flights = grown;
+            }
+            flights[flightCount * 2] = from;
+            flights[flightCount * 2 + 1] = to;
+            flightCount++;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.chainreaction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a replay saved by {@link ReplayWriter}. The file is memory-mapped rather than
+ * loaded, and seeking to a move restores the nearest keyframe at or before it and plays
+ * forward from there, so it never replays more than K moves. A reader is not safe
+ * to share between threads.
+ */
+public class ReplayReader {
+    private final ByteBuffer data;
+    private final BoardTopology topology;
+    private final int cellBits;
+    private final int width;
+    private final int height;
+    private final int numPlayers;
+    private final int keyframeInterval;
+    private final int moveCount;
+    private final int movesStart;
+    private final int keyframesStart;
+    private final int keyframeCount;
+    private final byte[] owners;
+    private final byte[] orbs;
+    private int cursor; // read position of readVarint
+
+    /** Maps the given replay file. */
+    public static ReplayReader open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new ReplayReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** Reads a replay held in memory, from the buffer's first byte to its limit. */
+    public ReplayReader(ByteBuffer data) throws IOException {
+        this.data = data;
+        int magic = data.limit() < 4 ? 0 : data.getInt(0);
+        if (magic != ReplayWriter.MAGIC) {
+            throw new IOException("not a replay file");
+        }
+        cursor = 4;
+        int kind = readVarint();
+        width = readVarint();
+        height = readVarint();
+        numPlayers = readVarint();
+        keyframeInterval = readVarint();
+        moveCount = readVarint();
+        int movesLength = readVarint();
+        if (numPlayers < 2 || numPlayers > 3 || keyframeInterval < 1) {
+            throw new IOException("corrupt replay header");
+        }
+        try {
+            topology = BoardTopology.of(kind, width, height);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("corrupt replay header: " + e.getMessage());
+        }
+        cellBits = ReplayWriter.cellBits(topology);
+        movesStart = cursor;
+        keyframesStart = movesStart + movesLength;
+        keyframeCount = ReplayWriter.keyframeCount(moveCount, keyframeInterval);
+        long end = keyframesStart + (long) keyframeCount * ReplayWriter.keyframeSize(width * height, cellBits);
+        if (movesLength < moveCount || end > data.limit()) {
+            throw new IOException("truncated replay");
+        }
+        owners = new byte[width * height];
+        orbs = new byte[width * height];
+    }
+
+    public BoardTopology getTopology() {
+        return topology;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /** Number of moves in the game. */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /** Cell index, row * width + col, of the move played at the given ply. */
+    public int getMove(int ply) {
+        checkPly(ply, moveCount - 1);
+        int keyframe = Math.min(ply / keyframeInterval, keyframeCount);
+        cursor = movesStart + (keyframe == 0 ? 0 : data.getInt(keyframeOffset(keyframe)));
+        for (int i = keyframe * keyframeInterval; i < ply; i++) {
+            readVarint();
+        }
+        return readVarint();
+    }
+
+    /**
+     * Puts the board in the position after the given number of moves, 0 being the empty
+     * board. The board must have the replay's topology; its number of players is set to
+     * match and its undo history is cleared.
+     */
+    public void seek(GameBoard board, int ply) {
+        checkPly(ply, moveCount);
+        if (board.getTopology() != topology) {
+            throw new IllegalArgumentException("Board shape mismatch: " + board.getTopology());
+        }
+        board.setNumPlayers(numPlayers);
+        int keyframe = Math.min(ply / keyframeInterval, keyframeCount);
+        if (keyframe == 0) {
+            board.reset();
+            cursor = movesStart;
+        } else {
+            int position = keyframeOffset(keyframe);
+            int orbBits = cellBits / 2;
+            int orbMask = (1 << orbBits) - 1;
+            for (int cell = 0; cell < owners.length; cell++) {
+                int packed = cellBits == 8
+                        ? data.get(position + ReplayWriter.KEYFRAME_HEADER_BYTES + cell)
+                        : data.get(position + ReplayWriter.KEYFRAME_HEADER_BYTES + cell / 2) >> ((cell & 1) == 0 ? 4 : 0);
+                owners[cell] = (byte) (packed >> orbBits & 3);
+                orbs[cell] = (byte) (packed & orbMask);
+            }
+            board.setPosition(owners, orbs, data.get(position + 4), keyframe * keyframeInterval, false);
+            cursor = movesStart + data.getInt(position);
+        }
+        for (int i = keyframe * keyframeInterval; i < ply; i++) {
+            int move = readVarint();
+            if (!board.makeMove(move / width, move % width)) {
+                throw new IllegalStateException("Replay move " + i + " is not legal: cell " + move);
+            }
+        }
+    }
+
+    private void checkPly(int ply, int max) {
+        if (ply < 0 || ply > max) {
+            throw new IndexOutOfBoundsException("Ply " + ply + " of " + moveCount + " moves");
+        }
+    }
+
+    // Keyframe 1 holds the position after K moves; there is none for the empty board
+    private int keyframeOffset(int keyframe) {
+        return keyframesStart + (keyframe - 1) * ReplayWriter.keyframeSize(width * height, cellBits);
+    }
+
+    private int readVarint() {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = data.get(cursor++);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.chainreaction;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Records a game's moves and saves them as a compact replay, read back by
+ * {@link ReplayReader}. The file holds, in order:
+ *
+ * <ul>
+ *   <li>a header: the magic number, then varints for the {@link BoardTopology} kind,
+ *       width, height, number of players, keyframe interval K, number of moves and the
+ *       byte length of the move list;</li>
+ *   <li>the moves, one varint cell index each, so one byte per move on boards of up to
+ *       128 cells;</li>
+ *   <li>a keyframe after every K moves except the last: the move list offset of the
+ *       next move, the player to move and the cells, owner in the top half and orbs in
+ *       the bottom half of a nibble, or of a byte on shapes with thresholds above 4.</li>
+ * </ul>
+ *
+ * The game is still running at every keyframe, so no cell holds more orbs than its
+ * threshold less one, and keyframes all have the same size, so the reader finds one by
+ * arithmetic. Only the moves are kept while recording; the keyframes are rebuilt by
+ * replaying the game when it is saved.
+ */
+public class ReplayWriter {
+    static final int MAGIC = 0x43525231; // "CRR1"
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+    static final int KEYFRAME_HEADER_BYTES = 5;
+
+    private final BoardTopology topology;
+    private final int width;
+    private final int height;
+    private final int keyframeInterval;
+    private int numPlayers;
+    private int[] moves = new int[64];
+    private int moveCount;
+
+    public ReplayWriter(BoardTopology topology, int numPlayers) {
+        this(topology, numPlayers, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    public ReplayWriter(BoardTopology topology, int numPlayers, int keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: " + keyframeInterval);
+        }
+        this.topology = topology;
+        this.width = topology.getWidth();
+        this.height = topology.getHeight();
+        this.numPlayers = numPlayers;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /** Forgets the recorded moves and starts a new game with the given number of players. */
+    public void reset(int numPlayers) {
+        this.numPlayers = numPlayers;
+        moveCount = 0;
+    }
+
+    /**
+     * Records the move played at the given ply, 0 being the game's first move. Moves
+     * recorded past it are dropped, so after an undo the new line replaces the old one,
+     * while redone moves can simply be recorded again.
+     */
+    public void recordMove(int ply, int row, int col) {
+        if (ply < 0 || ply > moveCount) {
+            throw new IllegalArgumentException("Ply " + ply + " skips ahead of " + moveCount + " recorded moves");
+        }
+        if (ply == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[ply] = row * width + col;
+        moveCount = ply + 1;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /** Encodes the recorded game as a replay file's contents. */
+    public byte[] toByteArray() {
+        byte[] moveBytes = new byte[moveCount * 5];
+        int[] moveOffsets = new int[moveCount + 1];
+        int length = 0;
+        for (int i = 0; i < moveCount; i++) {
+            moveOffsets[i] = length;
+            length = putVarint(moveBytes, length, moves[i]);
+        }
+        moveOffsets[moveCount] = length;
+
+        int cells = width * height;
+        int keyframeCount = keyframeCount(moveCount, keyframeInterval);
+        byte[] header = new byte[4 + 7 * 5];
+        header[0] = (byte) (MAGIC >>> 24);
+        header[1] = (byte) (MAGIC >>> 16);
+        header[2] = (byte) (MAGIC >>> 8);
+        header[3] = (byte) MAGIC;
+        int headerLength = 4;
+        headerLength = putVarint(header, headerLength, topology.getKind());
+        headerLength = putVarint(header, headerLength, width);
+        headerLength = putVarint(header, headerLength, height);
+        headerLength = putVarint(header, headerLength, numPlayers);
+        headerLength = putVarint(header, headerLength, keyframeInterval);
+        headerLength = putVarint(header, headerLength, moveCount);
+        headerLength = putVarint(header, headerLength, length);
+
+        int cellBits = cellBits(topology);
+        int recordSize = keyframeSize(cells, cellBits);
+        byte[] out = new byte[headerLength + length + keyframeCount * recordSize];
+        System.arraycopy(header, 0, out, 0, headerLength);
+        System.arraycopy(moveBytes, 0, out, headerLength, length);
+
+        GameBoard board = new GameBoard(topology, false);
+        board.setNumPlayers(numPlayers);
+        byte[] owners = new byte[cells];
+        byte[] orbs = new byte[cells];
+        int position = headerLength + length;
+        for (int i = 0; i < keyframeCount * keyframeInterval; i++) {
+            int move = moves[i];
+            if (!board.makeMove(move / width, move % width)) {
+                throw new IllegalStateException("Recorded move " + i + " is not legal: cell " + move);
+            }
+            if ((i + 1) % keyframeInterval != 0) {
+                continue;
+            }
+            int offset = moveOffsets[i + 1];
+            out[position] = (byte) (offset >>> 24);
+            out[position + 1] = (byte) (offset >>> 16);
+            out[position + 2] = (byte) (offset >>> 8);
+            out[position + 3] = (byte) offset;
+            out[position + 4] = (byte) board.getCurrentPlayer();
+            board.copyState(owners, orbs);
+            for (int cell = 0; cell < cells; cell++) {
+                int packed = owners[cell] << (cellBits / 2) | orbs[cell];
+                if (cellBits == 8) {
+                    out[position + KEYFRAME_HEADER_BYTES + cell] = (byte) packed;
+                } else {
+                    out[position + KEYFRAME_HEADER_BYTES + cell / 2] |= (byte) (packed << ((cell & 1) == 0 ? 4 : 0));
+                }
+            }
+            position += recordSize;
+        }
+        return out;
+    }
+
+    // The last move gets no keyframe: it may end the game mid-cascade, leaving cells overfull
+    static int keyframeCount(int moveCount, int keyframeInterval) {
+        return moveCount == 0 ? 0 : (moveCount - 1) / keyframeInterval;
+    }
+
+    // Bits per keyframe cell: a nibble while orbs fit in two bits, otherwise a byte
+    static int cellBits(BoardTopology topology) {
+        return topology.getMaxThreshold() <= 4 ? 4 : 8;
+    }
+
+    static int keyframeSize(int cells, int cellBits) {
+        return KEYFRAME_HEADER_BYTES + (cells * cellBits + 7) / 8;
+    }
+
+    /** Saves the replay, replacing the file in one step so a reader never sees half of it. */
+    public void writeTo(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            out.write(toByteArray());
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Seven bits per byte, low bits first, high bit set on every byte but the last
+    private static int putVarint(byte[] out, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[position++] = (byte) value;
+        return position;
+    }
+}
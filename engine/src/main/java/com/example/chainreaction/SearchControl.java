@@ -0,0 +1,60 @@
+package com.example.chainreaction;
+
+/**
+ * Shared between a running search and whoever started it: tells the search when to stop
+ * and carries back the best move found so far. Searches poll {@link #shouldStop()} every
+ * so often, so stopping takes effect within a fraction of a millisecond.
+ */
+public class SearchControl {
+    private volatile long deadline;
+    private volatile boolean timed;
+    private volatile boolean stopped;
+    private volatile boolean cancelled;
+    private volatile int bestMove = -1;
+
+    /** A control with no deadline; the search runs until stopped or finished. */
+    public SearchControl() {
+    }
+
+    /** A control whose search stops after the given number of milliseconds. */
+    public static SearchControl withBudget(long budgetMs) {
+        SearchControl control = new SearchControl();
+        control.setBudget(budgetMs);
+        return control;
+    }
+
+    /** Sets the deadline to the given number of milliseconds from now. */
+    public void setBudget(long budgetMs) {
+        deadline = System.nanoTime() + budgetMs * 1000000L;
+        timed = true;
+    }
+
+    /** Asks the search to finish now with the best move it has. */
+    public void stop() {
+        stopped = true;
+    }
+
+    /** Stops the search and marks its result as unwanted. */
+    public void cancel() {
+        cancelled = true;
+        stopped = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean shouldStop() {
+        return stopped || (timed && System.nanoTime() - deadline >= 0);
+    }
+
+    /** Called by the search whenever it settles on a better move. */
+    public void reportBestMove(int move) {
+        bestMove = move;
+    }
+
+    /** Best move reported so far, or -1 if the search hasn't settled on one yet. */
+    public int getBestMove() {
+        return bestMove;
+    }
+}
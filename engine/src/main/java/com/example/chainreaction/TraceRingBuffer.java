@@ -0,0 +1,59 @@
+package com.example.chainreaction;
+
+/**
+ * {@link EngineTrace.Sink} that keeps the most recent events in a fixed-size binary ring
+ * buffer: a timestamp plus four ints per event, with no allocation while recording.
+ * Recording and reading lock the buffer, so events from several engine threads each land
+ * whole and {@link #forEach(Visitor)} can run while they are still being written.
+ */
+public class TraceRingBuffer implements EngineTrace.Sink {
+    private static final int FIELDS = 4; // type, a, b, c
+
+    private final int mask;
+    private final long[] timestamps;
+    private final int[] data;
+    private long written;
+
+    public interface Visitor {
+        void visit(long timestampNanos, int type, int a, int b, int c);
+    }
+
+    /** Creates a buffer holding the last {@code capacity} events, rounded up to a power of two. */
+    public TraceRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.timestamps = new long[size];
+        this.data = new int[size * FIELDS];
+    }
+
+    @Override
+    public synchronized void event(int type, int a, int b, int c) {
+        int slot = (int) written & mask;
+        timestamps[slot] = System.nanoTime();
+        int offset = slot * FIELDS;
+        data[offset] = type;
+        data[offset + 1] = a;
+        data[offset + 2] = b;
+        data[offset + 3] = c;
+        written++;
+    }
+
+    /** Total number of events recorded, including ones that have been overwritten. */
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    /** Visits the retained events from oldest to newest. */
+    public synchronized void forEach(Visitor visitor) {
+        long start = Math.max(0, written - timestamps.length);
+        for (long i = start; i < written; i++) {
+            int slot = (int) i & mask;
+            int offset = slot * FIELDS;
+            visitor.visit(timestamps[slot], data[offset], data[offset + 1], data[offset + 2], data[offset + 3]);
+        }
+    }
+
+    public synchronized void clear() {
+        written = 0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.chainreaction;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size transposition table for the alpha-beta search, stored as parallel arrays
+ * indexed by the low bits of the position hash. A slot is overwritten when the new entry
+ * was searched at least as deep, or when the old one is left over from an earlier search.
+ */
+class TranspositionTable {
+    static final int EXACT = 1;
+    static final int LOWER_BOUND = 2;
+    static final int UPPER_BOUND = 3;
+
+    private final int mask;
+    private final long[] keys;
+    private final int[] scores;
+    private final int[] moves;
+    private final byte[] depths;
+    private final byte[] flags;
+    private final byte[] ages;
+    private byte age;
+
+    /** Creates a table with 2^sizeBits slots. */
+    TranspositionTable(int sizeBits) {
+        int size = 1 << sizeBits;
+        mask = size - 1;
+        keys = new long[size];
+        scores = new int[size];
+        moves = new int[size];
+        depths = new byte[size];
+        flags = new byte[size];
+        ages = new byte[size];
+    }
+
+    /** Marks all current entries as belonging to an earlier search. */
+    void newSearch() {
+        age++;
+    }
+
+    void clear() {
+        Arrays.fill(flags, (byte) 0);
+        Arrays.fill(keys, 0L);
+    }
+
+    /** Returns the slot holding the given position, or -1 if it is not in the table. */
+    int probe(long key) {
+        int slot = (int) key & mask;
+        return flags[slot] != 0 && keys[slot] == key ? slot : -1;
+    }
+
+    int getScore(int slot) {
+        return scores[slot];
+    }
+
+    int getMove(int slot) {
+        return moves[slot];
+    }
+
+    int getDepth(int slot) {
+        return depths[slot];
+    }
+
+    int getFlag(int slot) {
+        return flags[slot];
+    }
+
+    void store(long key, int depth, int flag, int score, int move) {
+        int slot = (int) key & mask;
+        if (flags[slot] != 0 && ages[slot] == age && depths[slot] > depth && keys[slot] != key) {
+            return; // keep the deeper entry from this search
+        }
+        keys[slot] = key;
+        scores[slot] = score;
+        moves[slot] = move;
+        depths[slot] = (byte) depth;
+        flags[slot] = (byte) flag;
+        ages[slot] = age;
+    }
+}
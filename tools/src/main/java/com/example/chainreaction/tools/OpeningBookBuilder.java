@@ -0,0 +1,202 @@
+package com.example.chainreaction.tools;
+
+import com.example.chainreaction.AlphaBetaPlayer;
+import com.example.chainreaction.BoardTopology;
+import com.example.chainreaction.GameBoard;
+import com.example.chainreaction.OpeningBook;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds an {@link OpeningBook} by self-play, in two passes:
+ *
+ * <ol>
+ *   <li>Games from the empty board where both sides play quick alpha-beta moves, except
+ *       that within the book's depth each move is a random legal one with the given
+ *       probability, so the games spread over many openings. Every position reached
+ *       within the book's depth is kept, with the moves that led to it.</li>
+ *   <li>Each kept position is searched again with a much larger budget, and its best
+ *       move written to the book, sorted by position hash.</li>
+ * </ol>
+ *
+ * <pre>
+ *   gradle :tools:openingBook
+ *   gradle :tools:openingBook -PbookArgs='--plies 10 --games 5000 --search-ms 2000'
+ * </pre>
+ */
+public final class OpeningBookBuilder {
+    private final BoardTopology topology;
+    private final int numPlayers;
+    private final int plies;
+    private final int games;
+    private final double explore;
+    private final long playMs;
+    private final int depth;
+    private final long searchMs;
+    private final int threads;
+    private final long seed;
+    private final File out;
+
+    // Position hash to the moves that first reached it
+    private final Map<Long, int[]> lines = new ConcurrentHashMap<>();
+
+    private OpeningBookBuilder(Map<String, String> options) {
+        topology = Tournament.parseTopology(options);
+        numPlayers = Integer.parseInt(options.getOrDefault("players", "2"));
+        plies = Integer.parseInt(options.getOrDefault("plies", "8"));
+        games = Integer.parseInt(options.getOrDefault("games", "2000"));
+        explore = Double.parseDouble(options.getOrDefault("explore", "0.3"));
+        playMs = Long.parseLong(options.getOrDefault("play-ms", "20"));
+        depth = Integer.parseInt(options.getOrDefault("depth", "8"));
+        searchMs = Long.parseLong(options.getOrDefault("search-ms", "1000"));
+        threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        out = new File(options.getOrDefault("out", "opening_book.bin"));
+        if (numPlayers < 2 || numPlayers > 3) {
+            throw new IllegalArgumentException("players must be 2 or 3");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                System.err.println("usage: OpeningBookBuilder [--size WxH] [--topology grid|torus|hex]"
+                        + " [--players 2|3] [--plies N] [--games N] [--explore P] [--play-ms N]"
+                        + " [--depth N] [--search-ms N] [--threads N] [--seed N] [--out FILE]");
+                System.exit(2);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        new OpeningBookBuilder(options).run();
+    }
+
+    private void run() throws Exception {
+        long start = System.nanoTime();
+        AtomicInteger nextGame = new AtomicInteger();
+        runOnWorkers(() -> {
+            AlphaBetaPlayer[] seats = newSeats(AlphaBetaPlayer.DEFAULT_MAX_DEPTH, playMs);
+            GameBoard board = newBoard();
+            int[] legal = new int[topology.getCellCount()];
+            for (int game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+                playGame(board, seats, legal, new Random(seed * 1000003L + game));
+            }
+        });
+        System.out.println(String.format(Locale.ROOT, "%d games, %d positions within %d plies (%.1fs)",
+                games, lines.size(), plies, (System.nanoTime() - start) / 1e9));
+
+        List<Long> hashes = new ArrayList<>(lines.keySet());
+        long[] keys = new long[hashes.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = hashes.get(i);
+        }
+        Arrays.sort(keys);
+        int[] moves = new int[keys.length];
+        AtomicInteger nextPosition = new AtomicInteger();
+        AtomicInteger searched = new AtomicInteger();
+        runOnWorkers(() -> {
+            AlphaBetaPlayer[] seats = newSeats(depth, searchMs);
+            GameBoard board = newBoard();
+            for (int i = nextPosition.getAndIncrement(); i < keys.length; i = nextPosition.getAndIncrement()) {
+                board.reset();
+                for (int move : lines.get(keys[i])) {
+                    board.makeMove(move / topology.getWidth(), move % topology.getWidth());
+                }
+                moves[i] = seats[board.getCurrentPlayer()].chooseMove(board);
+                int done = searched.incrementAndGet();
+                if (done % 100 == 0) {
+                    System.out.println(String.format(Locale.ROOT, "[%.0fs] %d/%d positions searched",
+                            (System.nanoTime() - start) / 1e9, done, keys.length));
+                }
+            }
+        });
+        write(keys, moves);
+        System.out.println(String.format(Locale.ROOT, "wrote %s: %d positions, %d bytes (%.1fs)",
+                out, keys.length, out.length(), (System.nanoTime() - start) / 1e9));
+    }
+
+    private GameBoard newBoard() {
+        GameBoard board = new GameBoard(topology);
+        board.setNumPlayers(numPlayers);
+        board.setHashingEnabled(true);
+        return board;
+    }
+
+    // One searcher per player, so each keeps its own transposition table from move to move
+    private AlphaBetaPlayer[] newSeats(int maxDepth, long budgetMs) {
+        AlphaBetaPlayer[] seats = new AlphaBetaPlayer[numPlayers + 1];
+        for (int player = 1; player <= numPlayers; player++) {
+            seats[player] = new AlphaBetaPlayer(maxDepth, budgetMs);
+        }
+        return seats;
+    }
+
+    private void playGame(GameBoard board, AlphaBetaPlayer[] seats, int[] legal, Random random) {
+        board.reset();
+        int width = topology.getWidth();
+        int[] line = new int[plies];
+        for (int ply = 0; ply < plies && !board.isGameOver(); ply++) {
+            lines.putIfAbsent(board.getPositionHash(), Arrays.copyOf(line, ply));
+            int move;
+            if (random.nextDouble() < explore) {
+                move = legal[random.nextInt(board.getLegalMoves(board.getCurrentPlayer(), legal))];
+            } else {
+                move = seats[board.getCurrentPlayer()].chooseMove(board);
+            }
+            board.makeMove(move / width, move % width);
+            line[ply] = move;
+        }
+    }
+
+    private void runOnWorkers(Runnable task) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(task);
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    // Written next to the target and moved into place, so a reader never sees half a book
+    private void write(long[] keys, int[] moves) throws IOException {
+        File temp = new File(out.getPath() + ".tmp");
+        try (DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            data.writeInt(OpeningBook.MAGIC);
+            data.writeInt(topology.getKind());
+            data.writeInt(topology.getWidth());
+            data.writeInt(topology.getHeight());
+            data.writeInt(numPlayers);
+            int count = 0;
+            for (int move : moves) {
+                count += move >= 0 ? 1 : 0;
+            }
+            data.writeInt(count);
+            for (int i = 0; i < keys.length; i++) {
+                if (moves[i] >= 0) {
+                    data.writeLong(keys[i]);
+                    data.writeInt(moves[i]);
+                }
+            }
+        }
+        Files.move(temp.toPath(), out.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+}
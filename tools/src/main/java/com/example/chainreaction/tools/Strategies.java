@@ -0,0 +1,174 @@
+package com.example.chainreaction.tools;
+
+import com.example.chainreaction.AlphaBetaPlayer;
+import com.example.chainreaction.EndgameSolver;
+import com.example.chainreaction.GameBoard;
+import com.example.chainreaction.MctsPlayer;
+
+/**
+ * Builds strategies from their command-line names:
+ * <ul>
+ * <li>{@code random}: any legal move</li>
+ * <li>{@code greedy}: the move that leaves the mover the most orbs relative to everyone else</li>
+ * <li>{@code alphabeta[:depth[:ms[:solver-nodes]]]}: {@link AlphaBetaPlayer}, trying an
+ *     {@link EndgameSolver} with that many nodes per move first if solver-nodes is given</li>
+ * <li>{@code mcts[:ms[:playouts]]}: single-threaded {@link MctsPlayer}</li>
+ * </ul>
+ * Random and greedy play is fully determined by the game seed. The search players are
+ * not, since they stop on a clock.
+ */
+public final class Strategies {
+    private static final int SOLVER_TABLE_BITS = 18; // 4 MB per player
+
+    private Strategies() {
+    }
+
+    /** Creates a new instance of the named strategy. */
+    public static Strategy create(String spec) {
+        String[] parts = spec.split(":");
+        switch (parts[0]) {
+            case "random":
+                return new RandomStrategy();
+            case "greedy":
+                return new GreedyStrategy();
+            case "alphabeta":
+                AlphaBetaPlayer alphaBeta = new AlphaBetaPlayer(intArg(parts, 1, AlphaBetaPlayer.DEFAULT_MAX_DEPTH),
+                        intArg(parts, 2, (int) AlphaBetaPlayer.DEFAULT_TIME_BUDGET_MS));
+                int solverNodes = intArg(parts, 3, 0);
+                if (solverNodes > 0) {
+                    alphaBeta.setEndgameSolver(new EndgameSolver(SOLVER_TABLE_BITS), solverNodes);
+                }
+                return new AlphaBetaStrategy(alphaBeta);
+            case "mcts":
+                return new MctsStrategy(new MctsPlayer(1, intArg(parts, 1, (int) MctsPlayer.DEFAULT_TIME_BUDGET_MS),
+                        intArg(parts, 2, Integer.MAX_VALUE)));
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + spec);
+        }
+    }
+
+    private static int intArg(String[] parts, int index, int fallback) {
+        return parts.length > index ? Integer.parseInt(parts[index]) : fallback;
+    }
+
+    /** Next value of a 64-bit xorshift generator. */
+    static long next(long state) {
+        state ^= state << 13;
+        state ^= state >>> 7;
+        state ^= state << 17;
+        return state;
+    }
+
+    /** Uniform value in [0, bound) from a generator state. */
+    static int bounded(long state, int bound) {
+        return (int) ((state >>> 1) % bound);
+    }
+
+    static final class RandomStrategy implements Strategy {
+        private long state;
+
+        @Override
+        public void newGame(long seed) {
+            state = seed != 0 ? seed : 1;
+        }
+
+        @Override
+        public int chooseMove(GameBoard board) {
+            int cellCount = board.getWidth() * board.getHeight();
+            int player = board.getCurrentPlayer();
+            state = next(state);
+            int start = bounded(state, cellCount);
+            int index = board.nextLegalMove(player, start);
+            return index >= 0 ? index : board.nextLegalMove(player, 0);
+        }
+    }
+
+    /** One-ply lookahead on a scratch board, trying each move and taking it back. */
+    static final class GreedyStrategy implements Strategy {
+        private GameBoard scratch;
+        private int[] moves;
+        private long state;
+
+        @Override
+        public void newGame(long seed) {
+            state = seed != 0 ? seed : 1;
+        }
+
+        @Override
+        public int chooseMove(GameBoard board) {
+            int width = board.getWidth();
+            if (scratch == null || scratch.getTopology() != board.getTopology()) {
+                scratch = new GameBoard(board.getTopology(), false);
+                scratch.setJournalingEnabled(true);
+                moves = new int[width * board.getHeight()];
+            }
+            board.copyInto(scratch);
+            int player = board.getCurrentPlayer();
+            int moveCount = scratch.getLegalMoves(player, moves);
+            int best = -1;
+            int bestScore = Integer.MIN_VALUE;
+            int ties = 0;
+            for (int i = 0; i < moveCount; i++) {
+                int index = moves[i];
+                scratch.makeMove(index / width, index % width);
+                int score = 0;
+                for (int p = 1; p <= scratch.getNumPlayers(); p++) {
+                    score += p == player ? scratch.getPlayerScore(p) * (scratch.getNumPlayers() - 1)
+                            : -scratch.getPlayerScore(p);
+                }
+                scratch.undoMove();
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = index;
+                    ties = 1;
+                } else if (score == bestScore) {
+                    // Pick uniformly among equal moves
+                    state = next(state);
+                    if (bounded(state, ++ties) == 0) {
+                        best = index;
+                    }
+                }
+            }
+            return best;
+        }
+    }
+
+    static final class AlphaBetaStrategy implements Strategy {
+        private final AlphaBetaPlayer player;
+
+        AlphaBetaStrategy(AlphaBetaPlayer player) {
+            this.player = player;
+        }
+
+        @Override
+        public void newGame(long seed) {
+        }
+
+        @Override
+        public int chooseMove(GameBoard board) {
+            return player.chooseMove(board);
+        }
+    }
+
+    static final class MctsStrategy implements Strategy {
+        private final MctsPlayer player;
+
+        MctsStrategy(MctsPlayer player) {
+            this.player = player;
+        }
+
+        @Override
+        public void newGame(long seed) {
+        }
+
+        @Override
+        public int chooseMove(GameBoard board) {
+            return player.chooseMove(board);
+        }
+
+        @Override
+        public void close() {
+            player.shutdown();
+        }
+    }
+}
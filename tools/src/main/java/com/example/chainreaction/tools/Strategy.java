@@ -0,0 +1,19 @@
+package com.example.chainreaction.tools;
+
+import com.example.chainreaction.GameBoard;
+
+/**
+ * A way of choosing moves in headless games. Each runner thread has its own instances,
+ * so implementations don't need to be thread-safe.
+ */
+public interface Strategy {
+    /** Called before every game with that game's seed, so runs can be reproduced. */
+    void newGame(long seed);
+
+    /** Returns a legal move for the player to move, as row * width + col. */
+    int chooseMove(GameBoard board);
+
+    /** Releases any threads the strategy started, once its runner is done with it. */
+    default void close() {
+    }
+}
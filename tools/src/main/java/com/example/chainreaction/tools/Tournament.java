@@ -0,0 +1,269 @@
+package com.example.chainreaction.tools;
+
+import com.example.chainreaction.BoardTopology;
+import com.example.chainreaction.GameBoard;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays many headless games on all cores and reports aggregate statistics: wins by seat
+ * and by strategy, game lengths and cascade sizes. Games are split into fixed batches;
+ * each game's seed depends only on the base seed and its number, and seats rotate
+ * through the strategies from game to game. Finished batches are folded into the totals
+ * in order and saved to the checkpoint file, so an interrupted run picks up where it
+ * left off with the same result.
+ */
+public final class Tournament {
+    private static final int CHECKPOINT_MAGIC = 0x43525431; // "CRT1"
+
+    private final BoardTopology topology;
+    private final int width;
+    private final int height;
+    private final int numPlayers;
+    private final String[] strategyNames;
+    private final long games;
+    private final long seed;
+    private final int batchSize;
+    private final int maxMoves;
+    private final int threads;
+    private final File checkpoint;
+
+    private final AtomicInteger nextBatch = new AtomicInteger();
+    private final AtomicLong gamesPlayed = new AtomicLong();
+    private final Map<Integer, TournamentStats> finishedBatches = new HashMap<>(); // guarded by this
+    private TournamentStats totals; // guarded by this
+    private int completedBatches;   // guarded by this
+
+    private Tournament(Map<String, String> options) {
+        topology = parseTopology(options);
+        width = topology.getWidth();
+        height = topology.getHeight();
+        numPlayers = Integer.parseInt(options.getOrDefault("players", "2"));
+        strategyNames = options.getOrDefault("strategies", "random,random").split(",");
+        games = Long.parseLong(options.getOrDefault("games", "10000"));
+        seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        batchSize = Integer.parseInt(options.getOrDefault("batch", "1000"));
+        maxMoves = Integer.parseInt(options.getOrDefault("max-moves", String.valueOf(width * height * 100)));
+        threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        checkpoint = options.containsKey("checkpoint") ? new File(options.get("checkpoint")) : null;
+        if (numPlayers < 2 || numPlayers > 3) {
+            throw new IllegalArgumentException("players must be 2 or 3");
+        }
+        for (String name : strategyNames) {
+            Strategies.create(name); // fail early on a bad name
+        }
+        totals = new TournamentStats(strategyNames.length);
+    }
+
+    /** Board shape from the --size and --topology options, 6x12 grid by default. */
+    static BoardTopology parseTopology(Map<String, String> options) {
+        String size = options.getOrDefault("size", "6x12");
+        int split = size.indexOf('x');
+        int width = Integer.parseInt(size.substring(0, split));
+        int height = Integer.parseInt(size.substring(split + 1));
+        String shape = options.getOrDefault("topology", "grid");
+        int kind = shape.equals("grid") ? BoardTopology.GRID : shape.equals("torus") ? BoardTopology.TORUS
+                : shape.equals("hex") ? BoardTopology.HEX : -1;
+        if (kind < 0) {
+            throw new IllegalArgumentException("topology must be grid, torus or hex");
+        }
+        return BoardTopology.of(kind, width, height);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                System.err.println("usage: Tournament [--games N] [--size WxH] [--topology grid|torus|hex] [--players 2|3]"
+                        + " [--strategies s1,s2,...] [--threads N] [--seed N] [--batch N]"
+                        + " [--max-moves N] [--checkpoint FILE] [--report-seconds N]");
+                System.exit(2);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        Tournament tournament = new Tournament(options);
+        tournament.run(Integer.parseInt(options.getOrDefault("report-seconds", "10")));
+    }
+
+    private String config() {
+        return topology + " players=" + numPlayers + " strategies=" + String.join(",", strategyNames)
+                + " games=" + games + " seed=" + seed + " batch=" + batchSize + " maxMoves=" + maxMoves;
+    }
+
+    private int batchCount() {
+        return (int) ((games + batchSize - 1) / batchSize);
+    }
+
+    private void run(int reportSeconds) throws Exception {
+        if (checkpoint != null && checkpoint.exists()) {
+            loadCheckpoint();
+            System.out.println("resuming after " + completedBatches + " of " + batchCount() + " batches");
+        }
+        nextBatch.set(completedBatches);
+        long start = System.nanoTime();
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TournamentReport");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> report(start), reportSeconds, reportSeconds, TimeUnit.SECONDS);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(new Worker());
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        reporter.shutdownNow();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        synchronized (this) {
+            System.out.print(totals.format(strategyNames, numPlayers));
+        }
+        System.out.println(String.format(Locale.ROOT, "%d games this run in %.1fs, %.0f games/sec",
+                gamesPlayed.get(), seconds, gamesPlayed.get() / Math.max(seconds, 1e-9)));
+    }
+
+    private void report(long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long played = gamesPlayed.get();
+        synchronized (this) {
+            System.out.println(String.format(Locale.ROOT, "[%.0fs] %d games, %.0f games/sec, %d/%d batches saved",
+                    seconds, played, played / Math.max(seconds, 1e-9), completedBatches, batchCount()));
+            System.out.print(totals.format(strategyNames, numPlayers));
+        }
+    }
+
+    /** Folds finished batches into the totals in batch order and saves a checkpoint. */
+    private synchronized void batchFinished(int batch, TournamentStats stats) {
+        finishedBatches.put(batch, stats);
+        boolean advanced = false;
+        while (finishedBatches.containsKey(completedBatches)) {
+            totals.merge(finishedBatches.remove(completedBatches));
+            completedBatches++;
+            advanced = true;
+        }
+        if (advanced && checkpoint != null) {
+            try {
+                saveCheckpoint();
+            } catch (IOException e) {
+                System.err.println("could not save checkpoint: " + e);
+            }
+        }
+    }
+
+    private void saveCheckpoint() throws IOException {
+        File temp = new File(checkpoint.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeUTF(config());
+            out.writeInt(completedBatches);
+            totals.write(out);
+        }
+        Files.move(temp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private synchronized void loadCheckpoint() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(checkpoint)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("not a tournament checkpoint: " + checkpoint);
+            }
+            String saved = in.readUTF();
+            if (!saved.equals(config())) {
+                throw new IOException("checkpoint is for a different run: " + saved);
+            }
+            completedBatches = in.readInt();
+            totals = TournamentStats.read(in);
+        }
+    }
+
+    /** SplitMix64 of the base seed and game number. */
+    private long gameSeed(long game) {
+        long z = seed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private final class Worker implements Runnable {
+        private final GameBoard board = new GameBoard(topology);
+        private final Strategy[][] strategies = new Strategy[4][strategyNames.length]; // by seat
+        private final int[] seating = new int[4];
+
+        @Override
+        public void run() {
+            board.setNumPlayers(numPlayers);
+            int batch;
+            try {
+                while ((batch = nextBatch.getAndIncrement()) < batchCount()) {
+                    TournamentStats stats = new TournamentStats(strategyNames.length);
+                    long first = (long) batch * batchSize;
+                    long end = Math.min(games, first + batchSize);
+                    for (long game = first; game < end; game++) {
+                        play(game, stats);
+                        gamesPlayed.incrementAndGet();
+                    }
+                    batchFinished(batch, stats);
+                }
+            } finally {
+                for (Strategy[] seat : strategies) {
+                    for (Strategy strategy : seat) {
+                        if (strategy != null) {
+                            strategy.close();
+                        }
+                    }
+                }
+            }
+        }
+
+        private void play(long game, TournamentStats stats) {
+            long gameSeed = gameSeed(game);
+            for (int p = 1; p <= numPlayers; p++) {
+                int index = (int) ((p - 1 + game) % strategyNames.length);
+                seating[p] = index;
+                if (strategies[p][index] == null) {
+                    strategies[p][index] = Strategies.create(strategyNames[index]);
+                }
+                strategies[p][index].newGame(gameSeed ^ (p * 0xD1B54A32D192ED03L));
+            }
+            board.reset();
+            while (!board.isGameOver() && board.getMoveCount() < maxMoves) {
+                int player = board.getCurrentPlayer();
+                int move = strategies[player][seating[player]].chooseMove(board);
+                if (move < 0 || !board.makeMove(move / width, move % width)) {
+                    break; // no legal move: treat like the move limit
+                }
+                stats.recordMove(board.getLastCascadeExplosions());
+            }
+            int winner = 0;
+            if (board.isGameOver()) {
+                for (int p = 1; p <= numPlayers; p++) {
+                    if (board.getPlayerScore(p) > 0) {
+                        winner = p;
+                    }
+                }
+            }
+            stats.recordGame(seating, numPlayers, winner, board.getMoveCount());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.chainreaction.tools;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Running totals for a tournament. Everything is a fixed set of counters and log2
+ * histograms, so memory stays the same however many games are played, and totals from
+ * different threads or batches simply add up.
+ */
+final class TournamentStats {
+    static final int HISTOGRAM_BUCKETS = 32;
+
+    private final int strategyCount;
+    long games;
+    long cappedGames; // stopped at the move limit without a winner
+    long moves;
+    long explosions;
+    long maxExplosions;
+    final long[] seatWins = new long[4]; // by player number, 1-3
+    final long[] strategyGames;
+    final long[] strategyWins;
+    final long[] gameLengths = new long[HISTOGRAM_BUCKETS];   // moves per game
+    final long[] cascadeSizes = new long[HISTOGRAM_BUCKETS];  // explosions per move
+
+    TournamentStats(int strategyCount) {
+        this.strategyCount = strategyCount;
+        this.strategyGames = new long[strategyCount];
+        this.strategyWins = new long[strategyCount];
+    }
+
+    /** Bucket 0 holds 0, bucket b holds values in [2^(b-1), 2^b). */
+    static int bucket(long value) {
+        return Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    void recordMove(int cascadeExplosions) {
+        moves++;
+        explosions += cascadeExplosions;
+        maxExplosions = Math.max(maxExplosions, cascadeExplosions);
+        cascadeSizes[bucket(cascadeExplosions)]++;
+    }
+
+    /**
+     * @param seating strategy index for each player number
+     * @param winner winning player, or 0 if the game hit the move limit
+     */
+    void recordGame(int[] seating, int numPlayers, int winner, int length) {
+        games++;
+        gameLengths[bucket(length)]++;
+        for (int p = 1; p <= numPlayers; p++) {
+            strategyGames[seating[p]]++;
+        }
+        if (winner == 0) {
+            cappedGames++;
+        } else {
+            seatWins[winner]++;
+            strategyWins[seating[winner]]++;
+        }
+    }
+
+    void merge(TournamentStats other) {
+        games += other.games;
+        cappedGames += other.cappedGames;
+        moves += other.moves;
+        explosions += other.explosions;
+        maxExplosions = Math.max(maxExplosions, other.maxExplosions);
+        add(seatWins, other.seatWins);
+        add(strategyGames, other.strategyGames);
+        add(strategyWins, other.strategyWins);
+        add(gameLengths, other.gameLengths);
+        add(cascadeSizes, other.cascadeSizes);
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(strategyCount);
+        out.writeLong(games);
+        out.writeLong(cappedGames);
+        out.writeLong(moves);
+        out.writeLong(explosions);
+        out.writeLong(maxExplosions);
+        writeArray(out, seatWins);
+        writeArray(out, strategyGames);
+        writeArray(out, strategyWins);
+        writeArray(out, gameLengths);
+        writeArray(out, cascadeSizes);
+    }
+
+    static TournamentStats read(DataInput in) throws IOException {
+        TournamentStats stats = new TournamentStats(in.readInt());
+        stats.games = in.readLong();
+        stats.cappedGames = in.readLong();
+        stats.moves = in.readLong();
+        stats.explosions = in.readLong();
+        stats.maxExplosions = in.readLong();
+        readArray(in, stats.seatWins);
+        readArray(in, stats.strategyGames);
+        readArray(in, stats.strategyWins);
+        readArray(in, stats.gameLengths);
+        readArray(in, stats.cascadeSizes);
+        return stats;
+    }
+
+    private static void writeArray(DataOutput out, long[] values) throws IOException {
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void readArray(DataInput in, long[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readLong();
+        }
+    }
+
+    /** Multi-line human-readable summary. */
+    String format(String[] strategyNames, int numPlayers) {
+        StringBuilder out = new StringBuilder();
+        long decided = Math.max(1, games - cappedGames);
+        out.append(String.format(Locale.ROOT, "games %d (%d hit the move limit), avg length %.1f moves%n",
+                games, cappedGames, games == 0 ? 0.0 : moves / (double) games));
+        out.append("wins by seat:");
+        for (int p = 1; p <= numPlayers; p++) {
+            out.append(String.format(Locale.ROOT, "  P%d %.2f%%", p, 100.0 * seatWins[p] / decided));
+        }
+        out.append(String.format("%n"));
+        out.append("wins by strategy:");
+        for (int s = 0; s < strategyCount; s++) {
+            out.append(String.format(Locale.ROOT, "  %s %.2f%% of %d seats", strategyNames[s],
+                    strategyGames[s] == 0 ? 0.0 : 100.0 * strategyWins[s] / strategyGames[s], strategyGames[s]));
+        }
+        out.append(String.format(Locale.ROOT, "%ncascades: avg %.2f explosions per move, max %d%n",
+                moves == 0 ? 0.0 : explosions / (double) moves, maxExplosions));
+        appendHistogram(out, "game length", gameLengths, games);
+        appendHistogram(out, "explosions per move", cascadeSizes, moves);
+        return out.toString();
+    }
+
+    private static void appendHistogram(StringBuilder out, String title, long[] buckets, long total) {
+        out.append(title).append(':');
+        for (int b = 0; b < buckets.length; b++) {
+            if (buckets[b] == 0) {
+                continue;
+            }
+            String range = b == 0 ? "0" : b == 1 ? "1" : (1L << (b - 1)) + "-" + ((1L << b) - 1);
+            out.append(String.format(Locale.ROOT, "  %s:%.2f%%", range, 100.0 * buckets[b] / Math.max(1, total)));
+        }
+        out.append(String.format("%n"));
+    }
+}